@@ -0,0 +1,143 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.OwningMembership;
+import org.omg.sysml.lang.sysml.PartDefinition;
+import org.omg.sysml.lang.sysml.Specialization;
+import org.omg.sysml.lang.sysml.SysMLFactory;
+import org.omg.sysml.lang.sysml.SysMLPackage;
+import org.osate.sysml.util.ElementDecoder;
+import org.osate.sysml.util.ElementHelper;
+import org.osate.sysml.util.LibraryIndex;
+import org.osate.sysml.util.RecordingJsonReader;
+
+import com.google.gson.stream.JsonReader;
+
+public class ElementDecoderTest {
+
+	static SysMLTestHelper helper;
+
+	@BeforeAll
+	static void setup() {
+		helper = new SysMLTestHelper();
+		helper.setVerbose(false);
+	}
+
+	@AfterEach
+	void reset() {
+		helper.cleanResourceSet();
+	}
+
+	@Test
+	void testDecode() throws IOException {
+		var json = """
+				[
+				  {"@id": "n", "@type": "Namespace", "elementId": "n", "owner": null,
+				   "ownedRelationship": [{"@id": "m"}, {"@id": "s"}]},
+				  {"ownedRelatedElement": [{"@id": "p"}], "@id": "m", "@type": "OwningMembership",
+				   "elementId": "m", "owner": {"@id": "n"}},
+				  {"@id": "p", "@type": "PartDefinition", "elementId": "p", "declaredName": "p",
+				   "isAbstract": true, "aliasIds": ["q", "r"], "owner": {"@id": "n"}},
+				  {"@id": "s", "@type": "Specialization", "elementId": "s", "owner": {"@id": "n"},
+				   "specific": {"@id": "p"}, "general": {"@id": "unknown"}},
+				  {"@id": "x", "@type": "Package", "elementId": "x", "owner": null}
+				]
+				""";
+		var rs = helper.getResourceSet();
+		var res = rs.createResource(URI.createFileURI("decoder.sysml"));
+		((ResourceImpl) res).setIntrinsicIDToEObjectMap(new HashMap<>());
+		var decoder = new ElementDecoder(new ElementHelper(LibraryIndex.get(rs, List.of())));
+		try (var in = new JsonReader(new StringReader(json))) {
+			in.beginArray();
+			while (in.hasNext()) {
+				decoder.read(in);
+			}
+			in.endArray();
+		}
+		var roots = decoder.link(res);
+
+		// the package is not a namespace and is dropped
+		assertEquals(1, roots.size());
+		var ns = (Namespace) roots.get(0);
+		assertSame(ns, res.getContents().get(0));
+		assertEquals(2, ns.getOwnedRelationship().size());
+
+		var m = (OwningMembership) ns.getOwnedRelationship().get(0);
+		var p = (PartDefinition) m.getOwnedRelatedElement().get(0);
+		assertEquals("p", p.getDeclaredName());
+		assertTrue(p.isAbstract());
+		assertEquals(List.of("q", "r"), p.getAliasIds());
+
+		var s = (Specialization) ns.getOwnedRelationship().get(1);
+		assertSame(p, s.getSpecific());
+		var general = (EObject) s.eGet(SysMLPackage.Literals.SPECIALIZATION__GENERAL, false);
+		assertTrue(general.eIsProxy());
+	}
+
+	@Test
+	void testRecordedJson() throws IOException {
+		var json = "{\"ignored\":{\"a\":[1.50,null,true]},\"@id\":\"p\",\"@type\":\"PartDefinition\","
+				+ "\"elementId\":\"p\",\"declaredName\":\"p \\\"q\\\"\",\"owner\":null,\"unknown\":[{}]}";
+		var decoder = new ElementDecoder(new ElementHelper(LibraryIndex.get(helper.getResourceSet(), List.of())));
+		var recording = new RecordingJsonReader(new JsonReader(new StringReader(json)));
+		var pd = (PartDefinition) decoder.read(recording);
+		assertEquals("p \"q\"", pd.getDeclaredName());
+		assertEquals(json, recording.getJson());
+	}
+
+	@Test
+	void testLibraryIndexMerge() {
+		var rs = new ResourceSetImpl();
+		var index = LibraryIndex.get(rs, List.of());
+		assertEquals(0, index.size());
+
+		var res = rs.createResource(URI.createFileURI("library.sysml"));
+		var pd = SysMLFactory.eINSTANCE.createPartDefinition();
+		pd.setElementId("00000000-0000-0000-0000-000000000001");
+		pd.setDeclaredName("p");
+		res.getContents().add(pd);
+		// library resources of later callers are added to the existing index
+		assertSame(index, LibraryIndex.get(rs, List.of(res)));
+		assertEquals(1, index.size());
+		assertSame(pd, index.get("00000000-0000-0000-0000-000000000001"));
+	}
+
+}
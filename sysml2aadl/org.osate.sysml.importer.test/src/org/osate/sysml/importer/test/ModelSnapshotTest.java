@@ -0,0 +1,77 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.LiteralInteger;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Type;
+import org.omg.sysml.util.FeatureUtil;
+import org.osate.sysml2aadl.ModelSnapshot;
+
+public class ModelSnapshotTest {
+
+	static SysMLTestHelper helper;
+
+	@BeforeAll
+	static void loadLibraries() {
+		helper = new SysMLTestHelper();
+		helper.initialize();
+		helper.setVerbose(false);
+	}
+
+	@AfterEach
+	void reset() {
+		helper.cleanResourceSet();
+	}
+
+	@Test
+	void testInheritedExpression() {
+		var resource = helper.readFiles("models/snapshot/Inherited.sysml").get(0);
+		var snapshot = new ModelSnapshot();
+		var root = (Namespace) resource.getContents().get(0);
+		var pkg = (Namespace) find(snapshot, root, "Inherited");
+		var a = (Type) find(snapshot, pkg, "A");
+		var b = Arrays.stream(snapshot.getOwnedFeature(a)).filter(f -> "b".equals(f.getDeclaredName()))
+				.findFirst().get();
+		var expr = FeatureUtil.getValueExpressionFor(b);
+
+		// the expression of b is inherited by x and y but refers to their own values of a
+		assertEquals(2, ((LiteralInteger) snapshot.evaluate(expr, find(snapshot, pkg, "x"))).getValue());
+		assertEquals(3, ((LiteralInteger) snapshot.evaluate(expr, find(snapshot, pkg, "y"))).getValue());
+		assertEquals(2, ((LiteralInteger) snapshot.evaluate(expr, find(snapshot, pkg, "x"))).getValue());
+	}
+
+	private Element find(ModelSnapshot snapshot, Namespace ns, String name) {
+		return Arrays.stream(snapshot.getOwnedMember(ns)).filter(e -> name.equals(e.getDeclaredName())).findFirst()
+				.get();
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osate.sysml2aadl.PackageDependencyGraph;
+
+public class PackageDependencyGraphTest {
+
+	Path dir;
+
+	PackageDependencyGraph graph;
+
+	Map<String, String> digests;
+
+	/**
+	 * Create a graph where C depends on B, B depends on A, and D is independent.
+	 */
+	@BeforeEach
+	void setup() throws IOException {
+		dir = Files.createTempDirectory("deps");
+		graph = new PackageDependencyGraph();
+		digests = new LinkedHashMap<>();
+		add("A", Set.of());
+		add("B", Set.of("A"));
+		add("C", Set.of("B"));
+		add("D", Set.of());
+	}
+
+	private void add(String name, Set<String> dependencies) throws IOException {
+		var fileName = name.toLowerCase() + ".aadl";
+		Files.writeString(dir.resolve(fileName), name);
+		graph.update(name, "1", fileName, dependencies);
+		digests.put(name, "1");
+	}
+
+	@Test
+	void testUnchanged() {
+		assertEquals(Set.of(), graph.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testSaveLoad() throws IOException {
+		var file = dir.resolve(PackageDependencyGraph.FILE_NAME);
+		graph.save(file);
+		var loaded = PackageDependencyGraph.load(file);
+		assertEquals(Set.of(), loaded.getDirtyPackages(digests, dir));
+		digests.put("A", "2");
+		assertEquals(Set.of("A", "B", "C"), loaded.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testLoadMissing() throws IOException {
+		var loaded = PackageDependencyGraph.load(dir.resolve("missing.deps"));
+		assertEquals(digests.keySet(), loaded.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testChangedPackage() {
+		digests.put("B", "2");
+		assertEquals(Set.of("B", "C"), graph.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testNewPackage() {
+		digests.put("E", "1");
+		assertEquals(Set.of("E"), graph.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testMissingFile() throws IOException {
+		Files.delete(dir.resolve("b.aadl"));
+		assertEquals(Set.of("B", "C"), graph.getDirtyPackages(digests, dir));
+	}
+
+	@Test
+	void testRemovedPackage() throws IOException {
+		digests.remove("A");
+		assertEquals(Set.of("B", "C"), graph.getDirtyPackages(digests, dir));
+		assertEquals(List.of("a.aadl"), graph.retainAll(digests.keySet(), dir));
+		assertFalse(Files.exists(dir.resolve("a.aadl")));
+		assertTrue(Files.exists(dir.resolve("b.aadl")));
+	}
+
+	@Test
+	void testRemovedPackageSharedFile() throws IOException {
+		// D now generates the file of the removed package A
+		graph.update("D", "2", "a.aadl", Set.of());
+		digests.remove("A");
+		assertEquals(List.of(), graph.retainAll(digests.keySet(), dir));
+		assertTrue(Files.exists(dir.resolve("a.aadl")));
+	}
+
+	@Test
+	void testDependentPackages() {
+		assertEquals(Set.of("B", "C"), graph.getDependentPackages(List.of("A")));
+		assertEquals(Set.of(), graph.getDependentPackages(List.of("C", "D")));
+	}
+
+}
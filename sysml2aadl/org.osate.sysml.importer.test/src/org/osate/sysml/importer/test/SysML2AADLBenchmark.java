@@ -0,0 +1,263 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Package;
+import org.omg.sysml.lang.sysml.PartDefinition;
+import org.omg.sysml.lang.sysml.PartUsage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.osate.sysml2aadl.AADLTextEmitter;
+import org.osate.sysml2aadl.ModelSnapshot;
+
+/**
+ * Benchmarks for the SysML to AADL translator on generated models.
+ * Run with -Dsysml2aadl.benchmark=true to enable them.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "sysml2aadl.benchmark", matches = "true")
+public class SysML2AADLBenchmark {
+
+	static final int WARMUP = 3;
+
+	static final int ITERATIONS = 10;
+
+	static SysMLTestHelper helper;
+
+	@BeforeAll
+	static void loadLibraries() {
+		helper = new SysMLTestHelper();
+		helper.initialize();
+		helper.setVerbose(false);
+	}
+
+	@AfterEach
+	void reset() {
+		helper.cleanResourceSet();
+	}
+
+	@Test
+	void benchmarkSerialization() throws IOException {
+		var file = writeModel(50, 20);
+		var results = helper.testFiles(file.toString());
+
+		time("Xtext serializer", results, r -> r.save(OutputStream.nullOutputStream(), null));
+		time("AADL text emitter", results, r -> new AADLTextEmitter(new BufferedWriter(Writer.nullWriter())).emit(r));
+	}
+
+	@Test
+	void benchmarkDerivedFeatures() throws IOException {
+		var file = writeDeepModel(8, 4);
+		var start = System.nanoTime();
+		var results = helper.testFiles(file.toString());
+		System.out.printf("%-20s %4d packages %10.2f ms%n", "conversion", results.size(),
+				(System.nanoTime() - start) / 1_000_000.0);
+
+		var rs = results.get(0).getResourceSet();
+		var packages = rs.getResources().stream()
+				.filter(r -> r.getURI().isFile() && file.toString().equals(r.getURI().toFileString()))
+				.flatMap(r -> ((Namespace) r.getContents().get(0)).getOwnedMember().stream())
+				.filter(Package.class::isInstance).map(Package.class::cast).toList();
+
+		// the access pattern of the converter for each part definition and part usage
+		var direct = timeTraversal(() -> null, unused -> {
+			long count = 0;
+			for (var p : packages) {
+				for (var m : p.getOwnedMember()) {
+					if (m instanceof PartDefinition pd) {
+						for (var f : pd.getOwnedFeature()) {
+							if (f instanceof PartUsage pu) {
+								for (var d : pu.getPartDefinition()) {
+									count += d.specializesFromLibrary("AADL::Component") ? 1 : 0;
+									count += d.getQualifiedName().length();
+								}
+							}
+						}
+					}
+				}
+			}
+			return count;
+		});
+		var memoized = timeTraversal(ModelSnapshot::new, snapshot -> {
+			long count = 0;
+			for (var p : packages) {
+				for (var m : snapshot.getOwnedMember(p)) {
+					if (m instanceof PartDefinition pd) {
+						for (var f : snapshot.getOwnedFeature(pd)) {
+							if (f instanceof PartUsage pu) {
+								for (var d : snapshot.getPartDefinition(pu)) {
+									count += snapshot.specializesFromLibrary(d, "AADL::Component") ? 1 : 0;
+									count += snapshot.getQualifiedName(d).length();
+								}
+							}
+						}
+					}
+				}
+			}
+			return count;
+		});
+		System.out.printf("%-20s %10.2f ms%n", "derived features", direct);
+		System.out.printf("%-20s %10.2f ms%n", "model snapshot", memoized);
+	}
+
+	/**
+	 * Run a traversal of the model repeatedly. The state, e.g., a snapshot, is created once per
+	 * iteration to include the cost of filling it, and shared by the repeated traversals.
+	 * @param state creates the state for an iteration
+	 * @param traversal the traversal
+	 * @return the average time per iteration in milliseconds
+	 */
+	private <T> double timeTraversal(Supplier<T> state, ToLongFunction<T> traversal) {
+		long check = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			check += traversal.applyAsLong(state.get());
+		}
+		var start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			var s = state.get();
+			// the converter reads the same derived features repeatedly, e.g., once per category
+			for (int j = 0; j < 10; j++) {
+				check += traversal.applyAsLong(s);
+			}
+		}
+		assertTrue(check > 0);
+		return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+	}
+
+	@FunctionalInterface
+	interface ResourceWriter {
+		void write(Resource r) throws IOException;
+	}
+
+	private void time(String name, List<Resource> resources, ResourceWriter writer) throws IOException {
+		for (int i = 0; i < WARMUP; i++) {
+			for (var r : resources) {
+				writer.write(r);
+			}
+		}
+		var start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (var r : resources) {
+				writer.write(r);
+			}
+		}
+		var ms = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+		System.out.printf("%-20s %4d packages %10.2f ms%n", name, resources.size(), ms);
+	}
+
+	/**
+	 * Write a SysML file with a deep part tree. Each level has a system implementation with
+	 * subcomponents of the next level that are connected in a chain.
+	 * @param depth the number of levels
+	 * @param fanout the number of subcomponents per level
+	 * @return the path of the generated file
+	 * @throws IOException
+	 */
+	static Path writeDeepModel(int depth, int fanout) throws IOException {
+		var sb = new StringBuilder();
+		sb.append("package deep {\n");
+		sb.append("\tpart def d :> AADL::Data;\n");
+		for (int l = 0; l < depth; l++) {
+			sb.append("\tpart def s").append(l).append(" :> AADL::System {\n");
+			sb.append("\t\tin port i : AADL::DataPort { in item :>> type : deep::d; }\n");
+			sb.append("\t\tout port o : AADL::DataPort { out item :>> type : deep::d; }\n");
+			sb.append("\t}\n");
+			sb.append("\tpart def 's").append(l).append(".i' :> s").append(l).append(" {\n");
+			if (l < depth - 1) {
+				var sub = "'s" + (l + 1) + ".i'";
+				for (int f = 0; f < fanout; f++) {
+					sb.append("\t\tpart c").append(f).append(" : ").append(sub).append(";\n");
+				}
+				sb.append("\t\tconnection cin : AADL::PortConnection connect i to c0.i;\n");
+				for (int f = 1; f < fanout; f++) {
+					sb.append("\t\tconnection c").append(f).append(" : AADL::PortConnection connect c").append(f - 1)
+							.append(".o to c").append(f).append(".i;\n");
+				}
+				sb.append("\t\tconnection cout : AADL::PortConnection connect c").append(fanout - 1)
+						.append(".o to o;\n");
+			}
+			sb.append("\t}\n");
+		}
+		sb.append("}\n");
+		var file = Files.createTempFile("deep", ".sysml");
+		file.toFile().deleteOnExit();
+		Files.writeString(file, sb);
+		return file;
+	}
+
+	/**
+	 * Write a SysML file with the given number of packages. Each package contains threads with
+	 * ports and a period, and process implementations with a thread subcomponent and connections.
+	 * @param packages the number of packages
+	 * @param components the number of threads and processes per package
+	 * @return the path of the generated file
+	 * @throws IOException
+	 */
+	static Path writeModel(int packages, int components) throws IOException {
+		var sb = new StringBuilder();
+		for (int p = 0; p < packages; p++) {
+			var pn = "bench" + p;
+			sb.append("package ").append(pn).append(" {\n");
+			sb.append("\tpart def d :> AADL::Data;\n");
+			for (int c = 0; c < components; c++) {
+				sb.append("\tpart def t").append(c).append(" :> AADL::Thread {\n");
+				sb.append("\t\tin port i : AADL::DataPort { in item :>> type : ").append(pn).append("::d; }\n");
+				sb.append("\t\tout port o : AADL::DataPort { out item :>> type : ").append(pn).append("::d; }\n");
+				sb.append("\t\tattribute :>> Period = ").append(c + 1).append(" [AADL_Project::Time_Units::ms];\n");
+				sb.append("\t}\n");
+				sb.append("\tpart def p").append(c).append(" :> AADL::Process {\n");
+				sb.append("\t\tin port i : AADL::DataPort { in item :>> type : ").append(pn).append("::d; }\n");
+				sb.append("\t\tout port o : AADL::DataPort { out item :>> type : ").append(pn).append("::d; }\n");
+				sb.append("\t}\n");
+				sb.append("\tpart def 'p").append(c).append(".i' :> p").append(c).append(" {\n");
+				sb.append("\t\tpart t : ").append(pn).append("::t").append(c).append(";\n");
+				sb.append("\t\tconnection c1 : AADL::PortConnection connect i to t.i;\n");
+				sb.append("\t\tconnection c2 : AADL::PortConnection connect t.o to o;\n");
+				sb.append("\t}\n");
+			}
+			sb.append("}\n\n");
+		}
+		var file = Files.createTempFile("benchmark", ".sysml");
+		file.toFile().deleteOnExit();
+		Files.writeString(file, sb);
+		return file;
+	}
+
+}
@@ -23,21 +23,33 @@
 package org.osate.sysml.importer.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.ecore.resource.Resource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.osate.sysml2aadl.AADLTextEmitter;
+import org.osate.sysml2aadl.ConversionDiagnostics.Kind;
+import org.osate.sysml2aadl.ConversionMetrics;
+import org.osate.sysml2aadl.ConversionMetrics.Phase;
+import org.osate.sysml2aadl.DiagnosticsReport;
 
 public class SysML2AADLConverterTest {
 
@@ -90,6 +102,165 @@ public class SysML2AADLConverterTest {
 		compareFiles(path, results);
 	}
 
+	@Test
+	void testEmittedUnits() throws IOException {
+		var results = helper.testFiles("models/properties/Properties.sysml");
+		var writer = new StringWriter();
+		for (var r : results) {
+			new AADLTextEmitter(writer).emit(r);
+		}
+		assertTrue(writer.toString().contains("Period => 4 ms;"));
+	}
+
+	@Test
+	void testComponentsParallel() {
+		var path = "models/components/";
+		var results = helper.testFiles(4, path + "Components.sysml");
+		compareFiles(path, results);
+	}
+
+	@Test
+	void testConnectionsParallel() {
+		var path = "models/connections/";
+		var results = helper.testFiles(4, path + "Connections.sysml");
+		compareFiles(path, results);
+	}
+
+	@Test
+	void testFeaturesParallel() {
+		var path = "models/features/";
+		var results = helper.testFiles(4, path + "Features.sysml");
+		compareFiles(path, results);
+	}
+
+	@Test
+	void testPropertiesParallel() {
+		// evaluates value expressions on the workers
+		var path = "models/properties/";
+		var results = helper.testFiles(4, path + "Properties.sysml");
+		compareFiles(path, results);
+	}
+
+	@Test
+	void testComponentsStreaming() {
+		var path = "models/components/";
+		var results = new ArrayList<Resource>();
+		helper.streamFiles(helper.createConverter(), r -> {
+			compareFiles(path, List.of(r));
+			results.add(r);
+		}, path + "Components.sysml");
+		var names = results.stream().map(r -> r.getURI().toString()).toList();
+		assertEquals(Set.of("Components.aadl", "A.aadl", "Components%3A%3AP.aadl"), Set.copyOf(names));
+		// A is written first because Components refers to it
+		assertEquals("A.aadl", names.get(0));
+		assertTrue(results.stream().noneMatch(Resource::isLoaded));
+	}
+
+	@Test
+	void testComponentsPublished() {
+		var path = "models/components/";
+		var published = new ArrayList<Resource>();
+		List<Resource> results;
+		try (var publisher = new SubmissionPublisher<Resource>()) {
+			var done = publisher.consume(published::add);
+			results = helper.publishFiles(helper.createConverter(), publisher, path + "Components.sysml");
+			done.join();
+		}
+		assertEquals(results, published);
+		assertEquals("A.aadl", published.get(0).getURI().toString());
+		compareFiles(path, results);
+	}
+
+	@Test
+	void testSession() throws Exception {
+		var session = helper.createSession();
+		var components = helper.readFiles("models/components/Components.sysml");
+		var connections = helper.readFiles("models/connections/Connections.sysml");
+		var count = helper.getResourceCount();
+
+		var executor = Executors.newFixedThreadPool(2);
+		try {
+			var first = executor.submit(() -> session.convert(components));
+			var second = executor.submit(() -> session.convert(connections));
+			compareFiles("models/components/", first.get());
+			compareFiles("models/connections/", second.get());
+		} finally {
+			executor.shutdown();
+		}
+		session.reset();
+		assertEquals(count, helper.getResourceCount());
+
+		// the same model can be converted again after a reset
+		compareFiles("models/components/", session.convert(components));
+	}
+
+	@Test
+	void testSessionRepeated() {
+		var session = helper.createSession();
+		var components = helper.readFiles("models/components/Components.sysml");
+		var count = helper.getResourceCount();
+
+		// only the AADL resources stay in the resource set
+		var first = session.convert(components);
+		assertEquals(count + first.size(), helper.getResourceCount());
+		var second = session.convert(components);
+		assertEquals(count + first.size() + second.size(), helper.getResourceCount());
+		compareFiles("models/components/", first);
+		compareFiles("models/components/", second);
+		session.reset();
+		assertEquals(count, helper.getResourceCount());
+	}
+
+	@Test
+	void testComponentsSelected() {
+		var path = "models/components/";
+		var converter = helper.createConverter();
+		converter.setPackageFilter(p -> "Components".equals(p.getQualifiedName()));
+		var results = helper.testFiles(converter, path + "Components.sysml");
+		var names = results.stream().map(r -> r.getURI().toString()).toList();
+		// A is converted because Components refers to it, P is not selected
+		assertEquals(List.of("Components.aadl", "A.aadl"), names);
+		compareFiles(path, results);
+		assertEquals(Map.of("Components", Set.of("A"), "A", Set.of()), converter.getPackageDependencies());
+	}
+
+	@Test
+	void testSysMLDependencies() {
+		var converter = helper.createConverter();
+		helper.testFiles(converter, "models/dependencies/Dependencies.sysml");
+		// B refers to C only in the SysML model, C::Base is not an AADL component
+		assertEquals(Set.of("C"), converter.getPackageDependencies().get("B"));
+	}
+
+	@Test
+	void testMetrics() {
+		var path = "models/components/";
+		var metrics = new ConversionMetrics();
+		var converter = helper.createConverter(metrics);
+		var results = helper.testFiles(converter, path + "Components.sysml");
+		compareFiles(path, results);
+		assertEquals(3, metrics.getElements(Phase.PACKAGE_CONVERSION));
+		assertEquals(3, metrics.getElements(Phase.COPY));
+		assertTrue(metrics.getElements(Phase.LIBRARY_INDEX) > 0);
+		assertTrue(metrics.toJson().contains("\"phase\": \"proxy resolution\""));
+	}
+
+	@Test
+	void testDiagnostics() throws IOException {
+		var path = "models/components/";
+		var report = new DiagnosticsReport();
+		var converter = helper.createConverter();
+		converter.setDiagnostics(report);
+		var results = helper.testFiles(converter, path + "Components.sysml");
+		compareFiles(path, results);
+		// 3 packages and 5 part definitions
+		assertEquals(8, report.getCount(Kind.CONVERTED));
+		assertEquals(0, report.getCount(Kind.SKIPPED));
+		var writer = new StringWriter();
+		report.writeJson(writer);
+		assertTrue(writer.toString().contains("\"qualifiedName\": \"Components::P\""));
+	}
+
 	private void compareFiles(String path, List<Resource> resources) {
 		for (var r : resources) {
 			try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -103,6 +274,12 @@ public class SysML2AADLConverterTest {
 						.filter(s -> !s.startsWith("--")) // skip comments
 						.collect(Collectors.joining());
 				assertEquals(content.replaceAll("\\s+", ""), aadl.replaceAll("\\s+", ""), fileName + " differs");
+
+				var writer = new StringWriter();
+				new AADLTextEmitter(writer).emit(r);
+				var emitted = writer.toString();
+				assertEquals(content.replaceAll("\\s+", ""), emitted.replaceAll("\\s+", ""),
+						fileName + " differs when emitted");
 			} catch (IOException e) {
 				fail("error reading result file " + r.getURI());
 			}
@@ -0,0 +1,262 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Package;
+import org.osate.sysml.api.CommitCache;
+import org.osate.sysml.api.SysMLApiAccess;
+
+public class SysMLApiAccessTest {
+
+	static final int PACKAGES = 20;
+
+	static SysMLTestHelper helper;
+
+	SysMLApiStub stub;
+
+	String namespace;
+
+	String p3;
+
+	@BeforeAll
+	static void setup() {
+		helper = new SysMLTestHelper();
+		helper.setVerbose(false);
+	}
+
+	/**
+	 * Create a project with a root namespace that owns packages. Later packages are served
+	 * faster, so concurrent requests complete out of order.
+	 */
+	@BeforeEach
+	void createProject() throws IOException {
+		stub = new SysMLApiStub("test");
+		var memberships = new ArrayList<String>();
+		for (int i = 0; i < PACKAGES; i++) {
+			var p = stub.addElement("Package", "p" + i, null, null);
+			if (i == 3) {
+				p3 = p;
+			}
+			var m = stub.addElement("OwningMembership", null, "ownedRelatedElement", List.of(p));
+			stub.setDelay(m, PACKAGES - i);
+			memberships.add(m);
+		}
+		namespace = stub.addElement("Namespace", null, "ownedRelationship", memberships);
+		stub.addRoot(namespace);
+	}
+
+	@AfterEach
+	void reset() {
+		stub.close();
+		helper.cleanResourceSet();
+	}
+
+	@Test
+	void testImport() {
+		var resources = importProject(1);
+		assertEquals(expectedNames(), packageNames(resources));
+		assertEquals(1, stub.getMaxInFlight());
+	}
+
+	@Test
+	void testConcurrentImport() {
+		var resources = importProject(4);
+		assertEquals(expectedNames(), packageNames(resources));
+		assertTrue(stub.getMaxInFlight() > 1);
+		assertTrue(stub.getMaxInFlight() <= 4);
+		// projects, branch, roots, and each element once
+		assertEquals(3 + 2 * PACKAGES + 1, stub.getRequestCount());
+	}
+
+	@Test
+	void testConcurrentImportFailure() {
+		// a task fails with an exception that is not an API error
+		stub.addOwned(namespace, "not-a-uuid");
+		assertThrows(IllegalArgumentException.class, () -> importProject(4));
+	}
+
+	@Test
+	void testTwoPassImport() {
+		var access = new SysMLApiAccess(stub.getBaseURL(), helper.getResourceSet(), Set.of(),
+				new NullProgressMonitor());
+		access.setConcurrency(4);
+		access.setTwoPass(true);
+		var resources = access.importProject("test");
+		assertEquals(expectedNames(), packageNames(resources));
+		// no proxies
+		assertEquals(1, resources.get(0).getContents().size());
+	}
+
+	@Test
+	void testPagedImport() {
+		var resources = importProject(1, 7);
+		assertEquals(expectedNames(), packageNames(resources));
+		assertEquals(1, resources.get(0).getContents().size());
+		// projects, branch, and pages of all elements
+		assertEquals(2 + (2 * PACKAGES + 7) / 7, stub.getRequestCount());
+	}
+
+	@Test
+	void testCachedImport() throws IOException {
+		var dir = Files.createTempDirectory("cache");
+		try (var cache = new CommitCache(dir)) {
+			importProject(4, 0, cache);
+			helper.cleanResourceSet();
+			var count = stub.getRequestCount();
+			var resources = importProject(1, 0, cache);
+			assertEquals(expectedNames(), packageNames(resources));
+			// only projects and branch
+			assertEquals(count + 2, stub.getRequestCount());
+		}
+		// read the cache file again
+		try (var cache = new CommitCache(dir)) {
+			helper.cleanResourceSet();
+			var count = stub.getRequestCount();
+			var resources = importProject(4, 0, cache);
+			assertEquals(expectedNames(), packageNames(resources));
+			assertEquals(count + 2, stub.getRequestCount());
+		}
+	}
+
+	@Test
+	void testCacheSkipsDuplicates() throws IOException {
+		var dir = Files.createTempDirectory("cache");
+		var file = dir.resolve(CommitCache.FILE_NAME);
+		var id = UUID.randomUUID();
+		try (var cache = new CommitCache(dir)) {
+			cache.put(id, id, id, "{}");
+			var length = Files.size(file);
+			cache.put(id, id, id, "{}");
+			assertEquals(length, Files.size(file));
+			cache.put(id, id, id, "[]");
+			assertEquals("[]", cache.get(id, id, id));
+			assertTrue(Files.size(file) > length);
+		}
+	}
+
+	@Test
+	void testCachedPagedImport() throws IOException {
+		try (var cache = new CommitCache(Files.createTempDirectory("cache"))) {
+			importProject(1, 7, cache);
+			helper.cleanResourceSet();
+			var count = stub.getRequestCount();
+			var resources = importProject(1, 7, cache);
+			assertEquals(expectedNames(), packageNames(resources));
+			// linked locally from the cached elements, no proxies
+			assertEquals(1, resources.get(0).getContents().size());
+			assertEquals(count + 2, stub.getRequestCount());
+		}
+	}
+
+	@Test
+	void testIncrementalImport() throws IOException {
+		try (var cache = new CommitCache(Files.createTempDirectory("cache"))) {
+			var first = importProject(1, 0, cache, true);
+			stub.rename(p3, "q3");
+			var p = stub.addElement("Package", "p" + PACKAGES, null, null);
+			stub.addOwned(namespace, stub.addElement("OwningMembership", null, "ownedRelatedElement", List.of(p)));
+			stub.commit();
+
+			var count = stub.getRequestCount();
+			var resources = importProject(1, 0, cache, true);
+			// the resource is reused
+			assertEquals(first.get(0), resources.get(0));
+			var expected = expectedNames();
+			expected.set(3, "q3");
+			expected.add("p" + PACKAGES);
+			assertEquals(expected, packageNames(resources));
+			// projects, branch, and diff
+			assertEquals(count + 3, stub.getRequestCount());
+		}
+	}
+
+	@Test
+	void testDeduplicatedFetch() {
+		// p3 is listed as a root and owned by a membership
+		stub.addRoot(p3);
+		var access = new SysMLApiAccess(stub.getBaseURL(), helper.getResourceSet(), Set.of(),
+				new NullProgressMonitor());
+		var resources = access.importProject("test");
+		assertEquals(expectedNames(), packageNames(resources));
+		// projects, branch, roots, and each element once
+		assertEquals(3 + 2 * PACKAGES + 1, stub.getRequestCount());
+		assertEquals(2 * PACKAGES + 2, access.getFetchLookups());
+		assertEquals(2 * PACKAGES + 1, access.getFetchRequests());
+		assertTrue(access.getDeduplicationRatio() > 0);
+	}
+
+	private List<Resource> importProject(int concurrency) {
+		return importProject(concurrency, 0);
+	}
+
+	private List<Resource> importProject(int concurrency, int pageSize) {
+		return importProject(concurrency, pageSize, null);
+	}
+
+	private List<Resource> importProject(int concurrency, int pageSize, CommitCache cache) {
+		return importProject(concurrency, pageSize, cache, false);
+	}
+
+	private List<Resource> importProject(int concurrency, int pageSize, CommitCache cache, boolean incremental) {
+		var access = new SysMLApiAccess(stub.getBaseURL(), helper.getResourceSet(), Set.of(),
+				new NullProgressMonitor());
+		access.setConcurrency(concurrency);
+		access.setPageSize(pageSize);
+		access.setCache(cache);
+		access.setIncremental(incremental);
+		return access.importProject("test");
+	}
+
+	private List<String> expectedNames() {
+		var names = new ArrayList<String>();
+		for (int i = 0; i < PACKAGES; i++) {
+			names.add("p" + i);
+		}
+		return names;
+	}
+
+	private List<String> packageNames(List<Resource> resources) {
+		var ns = (Namespace) resources.get(0).getContents().get(0);
+		return ns.getOwnedRelationship().stream().flatMap(r -> r.getOwnedRelatedElement().stream())
+				.filter(e -> e instanceof Package && !e.eIsProxy()).map(e -> e.getDeclaredName()).toList();
+	}
+
+}
@@ -0,0 +1,275 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.importer.test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for a SysML repository that serves one project with a single commit.
+ * Elements are added as JSON, the server counts the requests and records the maximum number
+ * of requests it handled concurrently.
+ */
+class SysMLApiStub implements AutoCloseable {
+
+	final UUID projectId = UUID.randomUUID();
+
+	final UUID branchId = UUID.randomUUID();
+
+	/** The head commit. */
+	volatile UUID commitId = UUID.randomUUID();
+
+	/** IDs of the elements changed since the previous commit. */
+	private final Set<String> changed = new LinkedHashSet<>();
+
+	private final String projectName;
+
+	private final HttpServer server;
+
+	/** All elements by ID, in order of creation. */
+	private final Map<String, StubElement> elements = new LinkedHashMap<>();
+
+	/** The element that owns an element via the given reference. */
+	private final Map<String, String> parents = new ConcurrentHashMap<>();
+
+	private final List<String> roots = new ArrayList<>();
+
+	/** Time to wait before answering a request for an element. */
+	private final Map<String, Integer> delays = new ConcurrentHashMap<>();
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	SysMLApiStub(String projectName) throws IOException {
+		this.projectName = projectName;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	String getBaseURL() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	int getRequestCount() {
+		return requests.get();
+	}
+
+	int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	/**
+	 * Add an element.
+	 * @param type the SysML type of the element
+	 * @param name the declared name or null
+	 * @param key the name of the reference to the owned elements
+	 * @param owned the IDs of the owned elements
+	 * @return the ID of the new element
+	 */
+	String addElement(String type, String name, String key, List<String> owned) {
+		var id = UUID.randomUUID().toString();
+		elements.put(id, new StubElement(type, name, key, owned == null ? null : new ArrayList<>(owned)));
+		if (owned != null) {
+			owned.forEach(o -> parents.put(o, id));
+		}
+		changed.add(id);
+		return id;
+	}
+
+	/**
+	 * Change the declared name of an element.
+	 * @param id the ID of the element
+	 * @param name the new name
+	 */
+	void rename(String id, String name) {
+		var e = elements.get(id);
+		elements.put(id, new StubElement(e.type(), name, e.key(), e.owned()));
+		changed.add(id);
+	}
+
+	/**
+	 * Add an owned element to an element.
+	 * @param id the ID of the owner
+	 * @param owned the ID of the new owned element
+	 */
+	void addOwned(String id, String owned) {
+		elements.get(id).owned().add(owned);
+		parents.put(owned, id);
+		changed.add(id);
+	}
+
+	/**
+	 * Create a new head commit. The diff against the previous commit contains the elements
+	 * that were added or changed since then.
+	 */
+	void commit() {
+		baseCommitId = commitId;
+		commitId = UUID.randomUUID();
+		diff = List.copyOf(changed);
+		changed.clear();
+	}
+
+	private UUID baseCommitId;
+
+	private List<String> diff = List.of();
+
+	private record StubElement(String type, String name, String key, List<String> owned) {
+	}
+
+	/**
+	 * Get the JSON of an element. The owner of an element is the element that owns its owning
+	 * relationship.
+	 * @param id the ID of the element
+	 * @return the JSON
+	 */
+	String toJson(String id) {
+		var e = elements.get(id);
+		if (e == null) {
+			return null;
+		}
+		var parent = parents.get(id);
+		var owner = parent != null && "ownedRelatedElement".equals(elements.get(parent).key()) ? parents.get(parent)
+				: parent;
+		var json = new StringBuilder();
+		json.append("{\"@id\":\"").append(id).append("\",\"@type\":\"").append(e.type()).append("\",\"elementId\":\"")
+				.append(id).append('"');
+		if (e.name() != null) {
+			json.append(",\"declaredName\":\"").append(e.name()).append("\",\"name\":\"").append(e.name()).append('"');
+		}
+		json.append(",\"owner\":").append(owner == null ? "null" : "{\"@id\":\"" + owner + "\"}");
+		if (e.key() != null) {
+			json.append(",\"").append(e.key()).append("\":").append(
+					e.owned().stream().map(o -> "{\"@id\":\"" + o + "\"}").collect(Collectors.joining(",", "[", "]")));
+		}
+		json.append('}');
+		return json.toString();
+	}
+
+	void addRoot(String id) {
+		roots.add(id);
+	}
+
+	void setDelay(String id, int millis) {
+		delays.put(id, millis);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	/**
+	 * Get a page of all elements and add a link to the next page to the response headers.
+	 * @param exchange the request for the page
+	 * @return the elements in the page
+	 */
+	private String getPage(HttpExchange exchange) {
+		String after = null;
+		int size = 100;
+		var query = exchange.getRequestURI().getQuery();
+		if (query != null) {
+			for (var param : query.split("&")) {
+				var kv = param.split("=", 2);
+				if ("page[after]".equals(kv[0])) {
+					after = kv[1];
+				} else if ("page[size]".equals(kv[0])) {
+					size = Integer.parseInt(kv[1]);
+				}
+			}
+		}
+		var ids = new ArrayList<>(elements.keySet());
+		var from = after == null ? 0 : ids.indexOf(after) + 1;
+		var to = Math.min(ids.size(), from + size);
+		if (to < ids.size()) {
+			var uri = exchange.getRequestURI().getPath() + "?page[after]=" + ids.get(to - 1) + "&page[size]=" + size;
+			exchange.getResponseHeaders().add("Link", "<" + getBaseURL() + uri + ">; rel=\"next\"");
+		}
+		return ids.subList(from, to).stream().map(this::toJson).collect(Collectors.joining(",", "[", "]"));
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			var path = exchange.getRequestURI().getPath().split("/");
+			String body = null;
+			if (path.length == 2 && "projects".equals(path[1])) {
+				body = "[{\"@id\":\"" + projectId + "\",\"@type\":\"Project\",\"name\":\"" + projectName
+						+ "\",\"defaultBranch\":{\"@id\":\"" + branchId + "\"}}]";
+			} else if (path.length == 5 && "branches".equals(path[3])) {
+				body = "{\"@id\":\"" + branchId + "\",\"@type\":\"Branch\",\"head\":{\"@id\":\"" + commitId + "\"}}";
+			} else if (path.length == 6 && "roots".equals(path[5])) {
+				body = roots.stream().map(this::toJson).collect(Collectors.joining(",", "[", "]"));
+			} else if (path.length == 6 && "elements".equals(path[5])) {
+				body = getPage(exchange);
+			} else if (path.length == 7 && "elements".equals(path[5])) {
+				var delay = delays.get(path[6]);
+				if (delay != null) {
+					Thread.sleep(delay);
+				}
+				body = toJson(path[6]);
+			} else if (path.length == 6 && "diff".equals(path[5]) && commitId.toString().equals(path[4])
+					&& exchange.getRequestURI().getQuery().equals("baseCommitId=" + baseCommitId)) {
+				body = diff.stream()
+						.map(id -> "{\"@type\":\"DataDifference\",\"compareData\":{\"@type\":\"DataVersion\","
+								+ "\"identity\":{\"@id\":\"" + id + "\"},\"payload\":" + toJson(id) + "}}")
+						.collect(Collectors.joining(",", "[", "]"));
+			}
+			if (body == null) {
+				exchange.sendResponseHeaders(404, -1);
+			} else {
+				var bytes = body.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, bytes.length);
+				exchange.getResponseBody().write(bytes);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+}
@@ -22,10 +22,15 @@
  */
 package org.osate.sysml.importer.test;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
@@ -35,6 +40,9 @@ import org.omg.kerml.xtext.KerMLStandaloneSetup;
 import org.omg.sysml.util.SysMLUtil;
 import org.omg.sysml.xtext.SysMLStandaloneSetup;
 import org.osate.pluginsupport.PluginSupportUtil;
+import org.osate.sysml.util.LibrarySnapshot;
+import org.osate.sysml2aadl.ConversionMetrics;
+import org.osate.sysml2aadl.ConverterSession;
 import org.osate.sysml2aadl.SysML2AADLConverter;
 import org.osate.xtext.aadl2.Aadl2StandaloneSetup;
 
@@ -61,6 +69,11 @@ public class SysMLTestHelper extends SysMLUtil {
 
 	void initialize() {
 		var dir = System.getProperty("user.dir") + "/";
+		var cache = System.getProperty("sysml2aadl.libraryCache");
+		if (cache != null) {
+			initialize(dir, cache);
+			return;
+		}
 		readAll(dir + sysmlLibraryPath, false);
 		propertyLookupContext = loadContributedAADL();
 		readAll(dir + aadlLibraryPath, true);
@@ -69,6 +82,31 @@ public class SysMLTestHelper extends SysMLUtil {
 		preloadedCount = getResourceSet().getResources().size();
 	}
 
+	/**
+	 * Initialize with the libraries restored from a snapshot in the given cache directory.
+	 * The snapshot is created if it does not exist or does not match the library sources.
+	 */
+	private void initialize(String dir, String cache) {
+		var snapshot = new LibrarySnapshot(Paths.get(cache), dir + sysmlLibraryPath, dir + aadlLibraryPath);
+		try {
+			if (snapshot.load(getResourceSet())) {
+				snapshot.getResources().forEach(this::addResourceToIndex);
+				aadlLibraryResources.addAll(snapshot.getInputResources());
+			} else {
+				var first = getResourceSet().getResources().size();
+				readAll(dir + sysmlLibraryPath, false);
+				readAll(dir + aadlLibraryPath, true);
+				aadlLibraryResources.addAll(getInputResources());
+				getInputResources().clear();
+				snapshot.save(getResourceSet(), first, aadlLibraryResources);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("cannot use library snapshot in " + cache, e);
+		}
+		propertyLookupContext = loadContributedAADL();
+		preloadedCount = getResourceSet().getResources().size();
+	}
+
 	private EObject loadContributedAADL() {
 		EcorePlugin.ExtensionProcessor.process(Thread.currentThread().getContextClassLoader());
 		var contributed = PluginSupportUtil.getContributedAadl();
@@ -89,15 +127,68 @@ public class SysMLTestHelper extends SysMLUtil {
 	}
 
 	List<Resource> testFiles(String... fname) {
+		return testFiles(1, fname);
+	}
+
+	List<Resource> testFiles(int parallelism, String... fname) {
+		var converter = createConverter();
+		converter.setParallelism(parallelism);
+		return testFiles(converter, fname);
+	}
+
+	SysML2AADLConverter createConverter() {
+		return new SysML2AADLConverter(getResourceSet(), aadlLibraryResources, propertyLookupContext);
+	}
+
+	ConverterSession createSession() {
+		return new ConverterSession(getResourceSet(), aadlLibraryResources, propertyLookupContext);
+	}
+
+	List<Resource> readFiles(String... fname) {
+		for (var fn : fname) {
+			readAll(fn, true);
+		}
+		var resources = List.copyOf(getInputResources());
+		getInputResources().clear();
+		return resources;
+	}
+
+	int getResourceCount() {
+		return getResourceSet().getResources().size();
+	}
+
+	SysML2AADLConverter createConverter(ConversionMetrics metrics) {
+		return new SysML2AADLConverter(getResourceSet(), aadlLibraryResources, propertyLookupContext,
+				new NullProgressMonitor(), metrics);
+	}
+
+	List<Resource> testFiles(SysML2AADLConverter converter, String... fname) {
 		for (var fn : fname) {
 			readAll(fn, true);
 		}
-		var converter = new SysML2AADLConverter(getResourceSet(), aadlLibraryResources, propertyLookupContext);
 		var results = converter.convert(getInputResources());
 		getInputResources().clear();
 		return results;
 	}
 
+	void streamFiles(SysML2AADLConverter converter, Consumer<Resource> consumer, String... fname) {
+		for (var fn : fname) {
+			readAll(fn, true);
+		}
+		converter.convert(getInputResources(), consumer);
+		getInputResources().clear();
+	}
+
+	List<Resource> publishFiles(SysML2AADLConverter converter, SubmissionPublisher<Resource> publisher,
+			String... fname) {
+		for (var fn : fname) {
+			readAll(fn, true);
+		}
+		var results = converter.convert(getInputResources(), publisher);
+		getInputResources().clear();
+		return results;
+	}
+
 	void cleanResourceSet() {
 		EList<Resource> resources = getResourceSet().getResources();
 		getResourceSet().getResources().stream().skip(preloadedCount).forEach(Resource::unload);
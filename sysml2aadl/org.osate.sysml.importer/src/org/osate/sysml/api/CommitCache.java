@@ -0,0 +1,230 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * On-disk cache of elements fetched from a SysML repository. The contents of a commit never
+ * change, so an element is stored under the IDs of its project and commit and its own ID.
+ * 
+ * The cache is a single append-only file. It starts with a magic number and the format version,
+ * followed by a record for each element containing the three IDs, the length of the element's
+ * JSON, and the JSON in UTF-8. The index from IDs to record offsets is built when the cache is
+ * opened, an incomplete record at the end of the file is discarded. Records are read from a
+ * memory mapping of the file.
+ * 
+ * A later record for the same IDs replaces an earlier one, a record with the same IDs and JSON
+ * as the current one is not appended. Records are never removed. The file is limited to 2 GB,
+ * when it is full, appending fails and the cache directory must be cleared to make room.
+ * 
+ * The cache is safe for use by multiple threads but not by multiple processes at the same time.
+ */
+public class CommitCache implements Closeable {
+
+	/** Name of the cache file in the cache directory. */
+	public static final String FILE_NAME = "sysml-elements.bin";
+
+	/** Element ID for the list of root elements of a commit. */
+	public static final UUID ROOTS = new UUID(0, 0);
+
+	/** Element ID for the list of all element IDs of a commit. */
+	public static final UUID ALL = new UUID(0, 1);
+
+	/** Element ID for the base commit of an incrementally imported commit. */
+	public static final UUID BASE = new UUID(0, 2);
+
+	/** Commit and element ID for the last imported commit of a project. */
+	public static final UUID HEAD = new UUID(0, 3);
+
+	private static final int MAGIC = 0x53594c45; // "SYLE"
+
+	private static final int VERSION = 1;
+
+	private static final int FILE_HEADER = 8;
+
+	/** Length of a record header: three IDs and the length of the data. */
+	private static final int RECORD_HEADER = 52;
+
+	/** Maximum size of the file, the mapping of the file is limited to 2 GB. */
+	private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+	private final Path file;
+
+	private final FileChannel channel;
+
+	/** Offsets of the records in the file. */
+	private final Map<Key, Long> index = new HashMap<>();
+
+	/** The mapping of the file, may not include records appended later. */
+	private MappedByteBuffer mapped;
+
+	/** The end of the last complete record. */
+	private long size;
+
+	private record Key(UUID project, UUID commit, UUID element) {
+	}
+
+	/**
+	 * Open the cache in the given directory. The cache file is created if it doesn't exist and
+	 * recreated if it has a different format.
+	 * @param dir the cache directory
+	 * @throws IOException if the cache file cannot be opened or is larger than 2 GB
+	 */
+	public CommitCache(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		file = dir.resolve(FILE_NAME);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (channel.size() > MAX_SIZE) {
+			channel.close();
+			throw new IOException("element cache " + file + " exceeds 2 GB, delete it to start a new cache");
+		}
+		if (!readIndex()) {
+			index.clear();
+			channel.truncate(0);
+			var header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+			channel.write(header, 0);
+			size = FILE_HEADER;
+		}
+	}
+
+	/**
+	 * Build the index from the records in the file.
+	 * @return false if the file is empty or has a different format
+	 * @throws IOException
+	 */
+	private boolean readIndex() throws IOException {
+		var length = channel.size();
+		if (length < FILE_HEADER) {
+			return false;
+		}
+		mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+			return false;
+		}
+		long pos = FILE_HEADER;
+		while (pos + RECORD_HEADER <= length) {
+			var p = (int) pos;
+			var key = new Key(new UUID(mapped.getLong(p), mapped.getLong(p + 8)),
+					new UUID(mapped.getLong(p + 16), mapped.getLong(p + 24)),
+					new UUID(mapped.getLong(p + 32), mapped.getLong(p + 40)));
+			var dataLength = mapped.getInt(p + 48);
+			var next = pos + RECORD_HEADER + dataLength;
+			if (dataLength < 0 || next > length) {
+				break;
+			}
+			index.put(key, pos);
+			pos = next;
+		}
+		size = pos;
+		if (size < length) {
+			mapped = null;
+			channel.truncate(size);
+		}
+		return true;
+	}
+
+	/**
+	 * Get the JSON of an element.
+	 * @param projectId the project
+	 * @param commitId the commit
+	 * @param elementId the element
+	 * @return the JSON or null if the element is not in the cache
+	 * @throws IOException
+	 */
+	public synchronized String get(UUID projectId, UUID commitId, UUID elementId) throws IOException {
+		var offset = index.get(new Key(projectId, commitId, elementId));
+		if (offset == null) {
+			return null;
+		}
+		if (mapped == null || offset + RECORD_HEADER > mapped.capacity()
+				|| offset + RECORD_HEADER + mapped.getInt((int) (offset + 48)) > mapped.capacity()) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		var pos = (int) (offset + RECORD_HEADER);
+		var bytes = new byte[mapped.getInt(pos - 4)];
+		mapped.get(pos, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Check if an element is in the cache.
+	 * @param projectId the project
+	 * @param commitId the commit
+	 * @param elementId the element
+	 * @return true if the element is in the cache
+	 */
+	public synchronized boolean contains(UUID projectId, UUID commitId, UUID elementId) {
+		return index.containsKey(new Key(projectId, commitId, elementId));
+	}
+
+	/**
+	 * Append the JSON of an element to the cache unless the cache already contains the same JSON
+	 * for the element.
+	 * @param projectId the project
+	 * @param commitId the commit
+	 * @param elementId the element
+	 * @param json the JSON of the element
+	 * @throws IOException if the record cannot be written or the cache is full
+	 */
+	public synchronized void put(UUID projectId, UUID commitId, UUID elementId, String json) throws IOException {
+		var key = new Key(projectId, commitId, elementId);
+		if (index.containsKey(key) && json.equals(get(projectId, commitId, elementId))) {
+			return;
+		}
+		var bytes = json.getBytes(StandardCharsets.UTF_8);
+		if (size + RECORD_HEADER + bytes.length > MAX_SIZE) {
+			throw new IOException("element cache " + file + " is full, delete it to start a new cache");
+		}
+		var buffer = ByteBuffer.allocate(RECORD_HEADER + bytes.length);
+		for (var id : new UUID[] { projectId, commitId, elementId }) {
+			buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+		}
+		buffer.putInt(bytes.length).put(bytes).flip();
+		var pos = size;
+		while (buffer.hasRemaining()) {
+			pos += channel.write(buffer, pos);
+		}
+		index.put(key, size);
+		size = pos;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		mapped = null;
+		channel.close();
+	}
+
+}
@@ -0,0 +1,208 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.omg.sysml.ApiException;
+import org.omg.sysml.model.Element;
+import org.osate.sysml.util.ElementHelper;
+
+/**
+ * Fetches the elements of a commit concurrently. Starting from the root elements, the fetcher
+ * follows the owned relationships of elements and the owned related elements of relationships,
+ * like the recursive import in {@link SysMLApiAccess}. Each element is fetched by a separate
+ * task, the number of requests in flight is limited. The tasks run on virtual threads if the
+ * Java runtime supports them.
+ */
+class ElementFetcher {
+
+	private final SysMLApiAccess access;
+
+	private final UUID projectId;
+
+	private final UUID commitId;
+
+	/** Permits for requests in flight. */
+	private final Semaphore permits;
+
+	private final ExecutorService executor;
+
+	/** Number of tasks that have not finished, plus one until all roots are submitted. */
+	private final AtomicInteger pending = new AtomicInteger(1);
+
+	/** Completed when the last task has finished. */
+	private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+	/** The fetched elements by ID. */
+	private final Map<UUID, Element> elements = new ConcurrentHashMap<>();
+
+	/** The first failure of a task, no new requests are sent after a failure. */
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * Create a fetcher.
+	 * @param access the API access used to fetch elements
+	 * @param projectId the project
+	 * @param commitId the commit
+	 * @param maxInFlight the maximum number of requests in flight
+	 */
+	ElementFetcher(SysMLApiAccess access, UUID projectId, UUID commitId, int maxInFlight) {
+		this.access = access;
+		this.projectId = projectId;
+		this.commitId = commitId;
+		this.permits = new Semaphore(maxInFlight);
+		this.executor = newExecutor(maxInFlight);
+	}
+
+	/**
+	 * Create an executor that runs each task on a virtual thread. Virtual threads are available
+	 * from Java 21 on, on older runtimes a pool with one thread per permitted request is used.
+	 */
+	private static ExecutorService newExecutor(int maxInFlight) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(maxInFlight);
+		}
+	}
+
+	/**
+	 * Fetch root elements and all elements they own. Roots that are not namespaces are
+	 * skipped by the import, they are added to the result as returned by the API.
+	 * @param roots the root elements as returned by the API
+	 * @return map from ID to fetched element
+	 * @throws ApiException if an element cannot be fetched
+	 * @throws RuntimeException if a task fails for another reason
+	 */
+	Map<UUID, Element> fetchAll(List<Element> roots) throws ApiException {
+		try {
+			for (var root : roots) {
+				var id = UUID.fromString((String) root.get("elementId"));
+				if ("Namespace".equals(root.get("@type"))) {
+					submit(id, false);
+				} else {
+					elements.put(id, root);
+					access.putCached(projectId, commitId, id, root);
+				}
+			}
+		} catch (RuntimeException e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			finish();
+		}
+		try {
+			done.join();
+		} finally {
+			executor.shutdownNow();
+		}
+		var t = failure.get();
+		if (t instanceof ApiException ae) {
+			throw ae;
+		} else if (t instanceof RuntimeException re) {
+			throw re;
+		} else if (t instanceof Error err) {
+			throw err;
+		} else if (t != null) {
+			throw new RuntimeException(t);
+		}
+		return elements;
+	}
+
+	/**
+	 * Fetch an element and then its content in a new task.
+	 * @param id the ID of the element
+	 * @param relationship true if the element is the owned relationship of an element
+	 */
+	private void submit(UUID id, boolean relationship) {
+		if (failure.get() != null || elements.containsKey(id)) {
+			return;
+		}
+		pending.incrementAndGet();
+		try {
+			executor.execute(() -> run(id, relationship));
+		} catch (RejectedExecutionException e) {
+			failure.compareAndSet(null, e);
+			finish();
+		}
+	}
+
+	/**
+	 * Fetch an element and submit its content. Any failure is recorded.
+	 */
+	private void run(UUID id, boolean relationship) {
+		try {
+			var me = fetch(id);
+			elements.put(id, me);
+			var owned = relationship ? me.get("ownedRelatedElement") : me.get("ownedRelationship");
+			for (var ref : ElementHelper.forceList(owned)) {
+				@SuppressWarnings("unchecked")
+				var childId = ((Map<String, String>) ref).get("@id");
+				submit(UUID.fromString(childId), !relationship);
+			}
+		} catch (InterruptedException e) {
+			failure.compareAndSet(null, e);
+			Thread.currentThread().interrupt();
+		} catch (Throwable t) {
+			failure.compareAndSet(null, t);
+		} finally {
+			finish();
+		}
+	}
+
+	/**
+	 * Mark a task as finished, the last one completes the fetch.
+	 */
+	private void finish() {
+		if (pending.decrementAndGet() == 0) {
+			done.complete(null);
+		}
+	}
+
+	/**
+	 * Get an element from the cache or fetch it, only fetching requires a permit.
+	 */
+	private Element fetch(UUID id) throws ApiException, InterruptedException {
+		var me = access.getCachedElement(projectId, commitId, id);
+		if (me != null) {
+			return me;
+		}
+		permits.acquire();
+		try {
+			return access.fetchElement(projectId, commitId, id);
+		} finally {
+			permits.release();
+		}
+	}
+
+}
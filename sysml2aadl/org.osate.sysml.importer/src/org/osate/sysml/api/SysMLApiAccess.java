@@ -22,15 +22,23 @@
  */
 package org.osate.sysml.api;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -47,9 +55,16 @@ import org.omg.sysml.api.ProjectApi;
 import org.omg.sysml.lang.sysml.Element;
 import org.omg.sysml.lang.sysml.Relationship;
 import org.omg.sysml.model.Project;
+import org.osate.sysml.util.ElementDecoder;
 import org.osate.sysml.util.ElementHelper;
+import org.osate.sysml.util.LibraryIndex;
+import org.osate.sysml.util.RecordingJsonReader;
 
+import com.google.gson.stream.JsonReader;
+
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
 
 /**
  * This class contains methods to read a project from a SysML repository via the REST API.
@@ -78,42 +93,166 @@ public class SysMLApiAccess {
 
 	private Set<Resource> libraryResources;
 
-	private Map<String, Element> libraryElements = new HashMap<>();
-
 	private ElementHelper elementHelper;
 
+	/** Maximum number of concurrent element requests, 1 for sequential import. */
+	private int concurrency = 1;
+
+	/** Number of elements per page when reading all elements of a commit, 0 to read the tree. */
+	private int pageSize = 0;
+
+	/** Cache of fetched elements, may be null. */
+	private CommitCache cache;
+
+	/** Set when writing to the cache failed, for example because it is full. */
+	private volatile boolean cacheWriteFailed = false;
+
+	/** Create all elements before setting references, instead of using proxies for later elements. */
+	private boolean twoPass = false;
+
+	/** Import only the changes since the last imported commit. */
+	private boolean incremental = false;
+
+	/** The commit to compute changes against, overrides the last imported commit. */
+	private UUID baseCommitId;
+
+	/** The commit imported last. */
+	private UUID commitId;
+
+	/** IDs of the elements read during the import. */
+	private Set<UUID> importedIds = new LinkedHashSet<>();
+
+	/** Elements fetched before the import, null if elements are fetched on demand. */
+	private Map<UUID, org.omg.sysml.model.Element> prefetched;
+
+	/** Element fetches of the current import, in flight or completed. */
+	private final Map<UUID, CompletableFuture<org.omg.sysml.model.Element>> fetches = new ConcurrentHashMap<>();
+
+	/** Number of element fetches requested during the last import. */
+	private final AtomicInteger fetchLookups = new AtomicInteger();
+
+	/** Number of element fetches sent to the API during the last import. */
+	private final AtomicInteger fetchRequests = new AtomicInteger();
+
 	public SysMLApiAccess(String baseURL, ResourceSet resourceSet, Set<Resource> aadlLibraryResources,
 			IProgressMonitor monitor) {
 		this.baseURL = baseURL;
 		this.resourceSet = resourceSet;
 		this.libraryResources = aadlLibraryResources;
 		this.monitor = monitor;
-		initLibraryElements();
-		elementHelper = new ElementHelper(libraryElements);
+		elementHelper = new ElementHelper(LibraryIndex.get(resourceSet, libraryResources));
 	}
 
-	private void initLibraryElements() {
-		for (var r : libraryResources) {
-			for (var iter = EcoreUtil.<Element>getAllContents(r, true); iter.hasNext();) {
-				var e = iter.next();
-				if (!(e instanceof Relationship)) {
-					if (e.getElementId() != null && e.getDeclaredName() != null) {
-						libraryElements.putIfAbsent(e.getElementId(), e);
-					}
-				}
-			}
-		}
+	/**
+	 * Set the maximum number of element requests in flight. With more than one request, all
+	 * elements are fetched concurrently before the EMF model is built in the original order.
+	 * @param concurrency the maximum number of concurrent requests
+	 */
+	public void setConcurrency(int concurrency) {
+		this.concurrency = Math.max(1, concurrency);
+	}
+
+	/**
+	 * Read all elements of the commit in pages of the given size. The elements are decoded from
+	 * the responses directly into EMF objects. The root elements are those without an owner, the
+	 * containment tree is then built from the owned relationships without further requests.
+	 * @param pageSize the number of elements per request, 0 to fetch the elements one by one
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = Math.max(0, pageSize);
+	}
+
+	/**
+	 * Set the cache for fetched elements. Elements in the cache are not fetched again when
+	 * the same commit is imported later.
+	 * @param cache the cache or null
+	 */
+	public void setCache(CommitCache cache) {
+		this.cache = cache;
+		cacheWriteFailed = false;
+	}
+
+	/**
+	 * Import in two passes. All elements are fetched and created first, references are then set
+	 * directly to the elements in the project or in the library. Proxies are only created for
+	 * elements that are neither, so the resource set does not need to be resolved afterwards.
+	 * The paged import always works this way.
+	 * @param twoPass true for a two-pass import
+	 */
+	public void setTwoPass(boolean twoPass) {
+		this.twoPass = twoPass;
+	}
+
+	/**
+	 * Import incrementally. If the cache contains an earlier commit of the project, only the
+	 * elements that changed since that commit are fetched. The other elements are read from the
+	 * cache. Requires a cache.
+	 * @param incremental true for incremental import
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Set the commit to compute changes against in an incremental import. By default this is the
+	 * last commit of the project imported with the same cache.
+	 * @param baseCommitId the base commit or null
+	 */
+	public void setBaseCommit(UUID baseCommitId) {
+		this.baseCommitId = baseCommitId;
+	}
+
+	/**
+	 * Get the ID of the commit imported last.
+	 * @return the commit ID or null if no project has been imported
+	 */
+	public UUID getCommitId() {
+		return commitId;
+	}
+
+	/**
+	 * Get the number of element fetches requested during the last import, including fetches
+	 * of elements that had already been fetched or were being fetched.
+	 * @return the number of element fetches
+	 */
+	public int getFetchLookups() {
+		return fetchLookups.get();
+	}
+
+	/**
+	 * Get the number of element requests sent to the API during the last import.
+	 * @return the number of element requests
+	 */
+	public int getFetchRequests() {
+		return fetchRequests.get();
+	}
+
+	/**
+	 * Get the fraction of element fetches in the last import that were served by an earlier
+	 * or concurrent request for the same element.
+	 * @return the deduplication ratio between 0 and 1
+	 */
+	public double getDeduplicationRatio() {
+		var lookups = fetchLookups.get();
+		return lookups == 0 ? 0 : 1 - (double) fetchRequests.get() / lookups;
 	}
 
 	/**
 	 * Find the project with the given name in the repository and import the elements fron
 	 * the head commit of the default branch. It does so by recursively reading the contents
-	 * of the project's root elements.
+	 * of the project's root elements, or by reading all elements page by page if a page size
+	 * is set. In an incremental import, the elements of the previous commit are read from the
+	 * cache and only the differences to the head commit are fetched.
+	 * 
+	 * If the resource set already contains the resource for the project, its contents are
+	 * replaced.
 	 * @param projectName name of the project to import
 	 * @return a list of created resources
 	 */
 	public List<Resource> importProject(String projectName) {
 		List<Resource> sysmlResources = new ArrayList<>();
+		// true if references have been set without proxies for elements in the resource
+		boolean linked = false;
 
 		apiClient.setBasePath(baseURL);
 		apiClient.setDebugging(true);
@@ -127,40 +266,191 @@ public class SysMLApiAccess {
 			var projectId = project.getAtId();
 			var branchId = project.getDefaultBranch().getAtId();
 			var branch = branchApi.getBranchesByProjectAndId(projectId, branchId);
-			var commitId = branch.getHead().getAtId();
+			commitId = branch.getHead().getAtId();
 
-			sysmlResource = resourceSet.createResource(URI.createFileURI(projectName + ".sysml"));
+			var uri = URI.createFileURI(projectName + ".sysml");
+			sysmlResource = resourceSet.getResource(uri, false);
+			if (sysmlResource == null) {
+				sysmlResource = resourceSet.createResource(uri);
+			} else {
+				sysmlResource.getContents().clear();
+			}
 			((ResourceImpl) sysmlResource).setIntrinsicIDToEObjectMap(new HashMap<>());
-
-			String after = null;
-			do {
-				var response = elementApi.getRootsByProjectCommitWithHttpInfo(projectId, commitId, after, null, 10);
-				for (var root : response.getData()) {
-					var id = UUID.fromString((String) root.get("elementId"));
-					processElement(null, projectId, commitId, id, "");
+			importedIds.clear();
+			fetches.clear();
+			fetchLookups.set(0);
+			fetchRequests.set(0);
+
+			List<org.omg.sysml.model.Element> roots = new ArrayList<>();
+			// the paged import links locally also when the elements come from the cache or the changes
+			var decoder = twoPass || pageSize > 0 ? new ElementDecoder(elementHelper) : null;
+			var base = getBaseCommit(projectId);
+			if (base != null && !base.equals(commitId)) {
+				prefetched = importChanges(projectId, commitId, base);
+			}
+			if (prefetched == null && pageSize > 0) {
+				prefetched = getCachedCommit(projectId, commitId);
+				if (prefetched == null) {
+					decodeAllElements(projectId, commitId);
+					linked = true;
 				}
-				after = null;
-				var links = response.getHeaders().get("link");
-				if (links != null) {
-					for (var link : links) {
-						var m = pattern.matcher(link);
-						if (m.find()) {
-							after = m.group(1);
-							after = URLDecoder.decode(after, StandardCharsets.UTF_8);
-							break;
-						}
+			}
+			if (prefetched != null) {
+				for (var me : prefetched.values()) {
+					if (me.get("owner") == null) {
+						roots.add(me);
 					}
 				}
-			} while (after != null);
+			} else if (pageSize == 0) {
+				var cachedRoots = getCached(projectId, commitId, CommitCache.ROOTS, org.omg.sysml.model.Element[].class);
+				if (cachedRoots != null) {
+					roots.addAll(List.of(cachedRoots));
+				} else {
+					String after = null;
+					do {
+						var response = elementApi.getRootsByProjectCommitWithHttpInfo(projectId, commitId, after, null,
+								10);
+						roots.addAll(response.getData());
+						after = getNextPage(response.getHeaders());
+					} while (after != null);
+					putCached(projectId, commitId, CommitCache.ROOTS, roots);
+				}
+
+				if (concurrency > 1) {
+					prefetched = new ElementFetcher(this, projectId, commitId, concurrency).fetchAll(roots);
+				}
+			}
+			for (var root : roots) {
+				var id = UUID.fromString((String) root.get("elementId"));
+				if (decoder != null) {
+					collectElement(decoder, projectId, commitId, id, false, true, "");
+				} else {
+					processElement(null, projectId, commitId, id, "");
+				}
+			}
+			if (decoder != null) {
+				decoder.link(sysmlResource);
+				linked = true;
+			}
+			if (cache != null && !cache.contains(projectId, commitId, CommitCache.ALL)) {
+				putCached(projectId, commitId, CommitCache.ALL, importedIds.stream().map(UUID::toString).toList());
+			}
+			putCached(projectId, CommitCache.HEAD, CommitCache.HEAD, commitId.toString());
 		} catch (ApiException ae) {
 			throw new RuntimeException(ae);
+		} finally {
+			prefetched = null;
+			fetches.clear();
 		}
 		// this should resolve all proxies.
-		EcoreUtil.resolveAll(resourceSet);
+		if (!linked) {
+			EcoreUtil.resolveAll(resourceSet);
+		}
 		sysmlResources.add(sysmlResource);
 		return sysmlResources;
 	}
 
+	/**
+	 * Get the commit to compute changes against.
+	 * @param projectId
+	 * @return the base commit or null for a full import
+	 */
+	private UUID getBaseCommit(UUID projectId) {
+		if (baseCommitId != null) {
+			return baseCommitId;
+		}
+		if (!incremental) {
+			return null;
+		}
+		var head = getCached(projectId, CommitCache.HEAD, CommitCache.HEAD, String.class);
+		return head == null ? null : UUID.fromString(head);
+	}
+
+	/**
+	 * Get the elements of a commit from the elements of a base commit in the cache and the
+	 * differences between the commits. Changed and added elements are stored in the cache,
+	 * the other elements are looked up in the base commit.
+	 * @param projectId
+	 * @param commitId the commit to import
+	 * @param baseCommitId the base commit
+	 * @return map from element ID to element, or null if the base commit is not in the cache
+	 * @throws ApiException
+	 */
+	@SuppressWarnings("unchecked")
+	Map<UUID, org.omg.sysml.model.Element> importChanges(UUID projectId, UUID commitId, UUID baseCommitId)
+			throws ApiException {
+		var elements = getCachedCommit(projectId, baseCommitId);
+		if (elements == null) {
+			return null;
+		}
+		for (var difference : fetchDifferences(projectId, commitId, baseCommitId)) {
+			var compareData = (Map<String, Object>) difference.get("compareData");
+			var version = compareData != null ? compareData : (Map<String, Object>) difference.get("baseData");
+			var identity = (Map<String, Object>) version.get("identity");
+			var elementId = UUID.fromString((String) identity.get("@id"));
+			var payload = compareData != null ? (Map<String, Object>) compareData.get("payload") : null;
+			if (compareData == null || compareData.containsKey("payload") && payload == null) {
+				// deleted
+				elements.remove(elementId);
+			} else if (payload != null && payload.containsKey("@type")) {
+				var me = new org.omg.sysml.model.Element();
+				me.putAll(payload);
+				putCached(projectId, commitId, elementId, me);
+				elements.put(elementId, me);
+			} else {
+				elements.put(elementId, fetchElement(projectId, commitId, elementId));
+			}
+		}
+		putCached(projectId, commitId, CommitCache.BASE, baseCommitId.toString());
+		putCached(projectId, commitId, CommitCache.ALL, elements.keySet().stream().map(UUID::toString).toList());
+		return elements;
+	}
+
+	/**
+	 * Get all elements of a commit from the cache.
+	 * @param projectId
+	 * @param commitId
+	 * @return map from element ID to element, or null if the cache doesn't contain all elements
+	 */
+	private Map<UUID, org.omg.sysml.model.Element> getCachedCommit(UUID projectId, UUID commitId) {
+		var ids = getCached(projectId, commitId, CommitCache.ALL, String[].class);
+		if (ids == null) {
+			return null;
+		}
+		Map<UUID, org.omg.sysml.model.Element> elements = new LinkedHashMap<>();
+		for (var id : ids) {
+			var elementId = UUID.fromString(id);
+			var me = getCachedElement(projectId, commitId, elementId);
+			if (me == null) {
+				return null;
+			}
+			elements.put(elementId, me);
+		}
+		return elements;
+	}
+
+	/**
+	 * Fetch the differences between two commits via the diff endpoint of the REST API.
+	 * @param projectId
+	 * @param commitId the commit to compare
+	 * @param baseCommitId the base commit
+	 * @return the data differences as returned by the API
+	 * @throws ApiException
+	 */
+	@SuppressWarnings("unchecked")
+	List<Map<String, Object>> fetchDifferences(UUID projectId, UUID commitId, UUID baseCommitId)
+			throws ApiException {
+		List<Map<String, Object>> differences = new ArrayList<>();
+		String after = null;
+		do {
+			var url = getCommitURL(projectId, commitId, "diff").addQueryParameter("baseCommitId",
+					baseCommitId.toString());
+			after = getPage(url, after, body -> differences
+					.addAll(List.of(apiClient.getJSON().getGson().fromJson(body, Map[].class))));
+		} while (after != null);
+		return differences;
+	}
+
 	/**
 	 * Find the project via the API.
 	 * @param name
@@ -177,18 +467,112 @@ public class SysMLApiAccess {
 					return p;
 				}
 			}
-			after = null;
-			var links = response.getHeaders().get("link");
-			if (links != null) {
-				for (var link : links) {
-					var m = pattern.matcher(link);
-					if (m.find()) {
-						after = m.group(1);
-						break;
+			after = getNextPage(response.getHeaders());
+		} while (after != null);
+		return null;
+	}
+
+	/**
+	 * Read all elements of a commit page by page and decode them directly into EMF objects,
+	 * which are then added to the resource. If there is a cache, the JSON of each element is
+	 * copied while it is decoded and stored in the cache.
+	 * @param projectId
+	 * @param commitId
+	 * @throws ApiException
+	 */
+	void decodeAllElements(UUID projectId, UUID commitId) throws ApiException {
+		var decoder = new ElementDecoder(elementHelper);
+		List<String> ids = new ArrayList<>();
+		String after = null;
+		do {
+			var url = getCommitURL(projectId, commitId, "elements").addQueryParameter("page[size]",
+					Integer.toString(pageSize));
+			after = getPage(url, after, body -> {
+				var in = new JsonReader(body);
+				in.beginArray();
+				while (in.hasNext()) {
+					if (cache == null) {
+						decoder.read(in);
+					} else {
+						var recording = new RecordingJsonReader(in);
+						var e = decoder.read(recording);
+						if (e != null) {
+							var elementId = UUID.fromString(e.getElementId());
+							putCachedJson(projectId, commitId, elementId, recording.getJson());
+							ids.add(elementId.toString());
+						}
 					}
 				}
-			}
+				in.endArray();
+			});
 		} while (after != null);
+		if (cache != null) {
+			putCached(projectId, commitId, CommitCache.ALL, ids);
+		}
+		decoder.link(sysmlResource);
+	}
+
+	/**
+	 * Read the body of a response.
+	 */
+	@FunctionalInterface
+	private interface BodyReader {
+		void read(Reader body) throws IOException;
+	}
+
+	/**
+	 * Get the URL for a resource of a commit.
+	 * @param projectId
+	 * @param commitId
+	 * @param path the path of the resource relative to the commit
+	 * @return a builder for the URL
+	 */
+	private HttpUrl.Builder getCommitURL(UUID projectId, UUID commitId, String path) {
+		return HttpUrl.get(baseURL).newBuilder().addPathSegment("projects").addPathSegment(projectId.toString())
+				.addPathSegment("commits").addPathSegment(commitId.toString()).addPathSegments(path);
+	}
+
+	/**
+	 * Get a page of results via the REST API. This bypasses the generated API client so the
+	 * body can be read as a stream.
+	 * @param url the URL of the first page
+	 * @param after the cursor of the page, null for the first page
+	 * @param reader reads the body of the response
+	 * @return the cursor of the next page, or null if this is the last page
+	 * @throws ApiException
+	 */
+	private String getPage(HttpUrl.Builder url, String after, BodyReader reader) throws ApiException {
+		if (after != null) {
+			url.addQueryParameter("page[after]", after);
+		}
+		var request = new Request.Builder().url(url.build()).header("Accept", "application/json").build();
+		try (var response = apiClient.getHttpClient().newCall(request).execute()) {
+			if (!response.isSuccessful()) {
+				throw new ApiException(response.code(), response.message(), response.headers().toMultimap(),
+						response.body() != null ? response.body().string() : null);
+			}
+			reader.read(response.body().charStream());
+			return getNextPage(response.headers().toMultimap());
+		} catch (IOException e) {
+			throw new ApiException(e);
+		}
+	}
+
+	/**
+	 * Get the cursor for the next page from the link header of a response.
+	 * @param headers the headers of the response for the current page
+	 * @return the page[after] value of the next page, or null if this is the last page
+	 */
+	private String getNextPage(Map<String, List<String>> headers) {
+		var links = headers.get("link");
+		if (links != null) {
+			for (var link : links) {
+				var m = pattern.matcher(link);
+				if (m.find()) {
+					return URLDecoder.decode(m.group(1), StandardCharsets.UTF_8);
+				}
+			}
+		}
 		return null;
 	}
 
@@ -227,6 +611,40 @@ public class SysMLApiAccess {
 		return e;
 	}
 
+	/**
+	 * Read an element and its owned elements for a two-pass import, in the same order as
+	 * {@link #processElement(Element, UUID, UUID, UUID, String)}. The EMF objects are created but
+	 * not linked. The elements are reported as sub tasks to the progress monitor, which prints
+	 * them in verbose mode.
+	 * @param decoder the decoder that collects the elements
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId the ID of the element
+	 * @param relationship true if the element is an owned relationship
+	 * @param root true for root elements
+	 * @param indent indentation for progress reporting
+	 */
+	@SuppressWarnings("unchecked")
+	void collectElement(ElementDecoder decoder, UUID projectId, UUID commitId, UUID elementId, boolean relationship,
+			boolean root, String indent) {
+		var me = getElement(projectId, commitId, elementId);
+
+		// skip API "proxies"
+		if (root && !"Namespace".equals(me.get("@type")))
+			return;
+
+		decoder.read(me);
+
+		monitor.subTask(indent + "- " + me.get("@type") + " " + me.get("name"));
+
+		var owned = relationship ? me.get("ownedRelatedElement") : me.get("ownedRelationship");
+		var childIndent = relationship && !"OwningMembership".equals(me.get("@type")) ? indent : indent + "  ";
+		for (var ref : (List<Map<String, String>>) ElementHelper.forceList(owned)) {
+			collectElement(decoder, projectId, commitId, UUID.fromString(ref.get("@id")), !relationship, false,
+					childIndent);
+		}
+	}
+
 	/**
 	 * Import a relationship and process its related elements.
 	 * @param owner the owner of this relationship
@@ -262,16 +680,25 @@ public class SysMLApiAccess {
 	}
 
 	/**
-	 * Fetch an element via the API.
+	 * Fetch an element via the API unless it has been fetched already or is in the cache.
 	 * @param projectId
 	 * @param commitId
 	 * @param elementId the ID of the element to fetch
 	 * @return the model element returned form the API.
 	 */
 	org.omg.sysml.model.Element getElement(UUID projectId, UUID commitId, UUID elementId) {
-		org.omg.sysml.model.Element element = null;
+		org.omg.sysml.model.Element element = prefetched != null ? prefetched.get(elementId) : null;
+		if (element != null) {
+			importedIds.add(elementId);
+			return element;
+		}
+		importedIds.add(elementId);
+		element = getCachedElement(projectId, commitId, elementId);
+		if (element != null) {
+			return element;
+		}
 		try {
-			element = elementApi.getElementByProjectCommitId(projectId, commitId, elementId);
+			element = fetchElement(projectId, commitId, elementId);
 		} catch (ApiException e) {
 			e.printStackTrace();
 			throw new RuntimeException(e);
@@ -280,4 +707,134 @@ public class SysMLApiAccess {
 		return element;
 	}
 
+	/**
+	 * Fetch an element via the API and add it to the cache. Each element is requested at most
+	 * once per import, later and concurrent fetches of the same element wait for the first
+	 * request and share its result. A failed request is not remembered.
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId the ID of the element to fetch
+	 * @return the model element returned from the API
+	 * @throws ApiException
+	 */
+	org.omg.sysml.model.Element fetchElement(UUID projectId, UUID commitId, UUID elementId) throws ApiException {
+		fetchLookups.incrementAndGet();
+		var future = new CompletableFuture<org.omg.sysml.model.Element>();
+		var pending = fetches.putIfAbsent(elementId, future);
+		if (pending != null) {
+			return await(pending);
+		}
+		try {
+			fetchRequests.incrementAndGet();
+			var element = elementApi.getElementByProjectCommitId(projectId, commitId, elementId);
+			putCached(projectId, commitId, elementId, element);
+			future.complete(element);
+			return element;
+		} catch (ApiException | RuntimeException e) {
+			fetches.remove(elementId, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Wait for a fetch started by another caller.
+	 * @param pending the pending fetch
+	 * @return the fetched element
+	 * @throws ApiException if the fetch failed
+	 */
+	private org.omg.sysml.model.Element await(CompletableFuture<org.omg.sysml.model.Element> pending)
+			throws ApiException {
+		try {
+			return pending.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ApiException ae) {
+				throw ae;
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Read a value from the cache. Errors reading the cache are reported and treated as a
+	 * cache miss.
+	 * @param <T> the type of the value
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId the ID of the element or one of the IDs for lists of elements
+	 * @param type the type of the value
+	 * @return the value or null if there is no cache or the value is not in the cache
+	 */
+	<T> T getCached(UUID projectId, UUID commitId, UUID elementId, Class<T> type) {
+		if (cache != null) {
+			try {
+				var json = cache.get(projectId, commitId, elementId);
+				if (json != null) {
+					return apiClient.getJSON().deserialize(json, type);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get an element from the cache. If the commit was imported incrementally, elements that
+	 * did not change are looked up in its base commit.
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId
+	 * @return the element or null if it is not in the cache
+	 */
+	org.omg.sysml.model.Element getCachedElement(UUID projectId, UUID commitId, UUID elementId) {
+		while (commitId != null) {
+			var me = getCached(projectId, commitId, elementId, org.omg.sysml.model.Element.class);
+			if (me != null) {
+				return me;
+			}
+			var base = getCached(projectId, commitId, CommitCache.BASE, String.class);
+			commitId = base == null ? null : UUID.fromString(base);
+		}
+		return null;
+	}
+
+	/**
+	 * Add a value to the cache. Errors writing the cache are reported but don't stop the import.
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId the ID of the element or one of the IDs for lists of elements
+	 * @param value the value
+	 */
+	void putCached(UUID projectId, UUID commitId, UUID elementId, Object value) {
+		if (cache != null) {
+			putCachedJson(projectId, commitId, elementId, apiClient.getJSON().serialize(value));
+		}
+	}
+
+	/**
+	 * Add the JSON of a value to the cache. After the first error no more values are written.
+	 * @param projectId
+	 * @param commitId
+	 * @param elementId the ID of the element or one of the IDs for lists of elements
+	 * @param json the JSON of the value
+	 */
+	private void putCachedJson(UUID projectId, UUID commitId, UUID elementId, String json) {
+		if (cacheWriteFailed) {
+			return;
+		}
+		try {
+			cache.put(projectId, commitId, elementId, json);
+		} catch (IOException e) {
+			cacheWriteFailed = true;
+			e.printStackTrace();
+		}
+	}
+
 }
@@ -23,9 +23,12 @@
 package org.osate.sysml.api;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -37,6 +40,7 @@ import org.omg.sysml.lang.sysml.Element;
 import org.omg.sysml.lang.sysml.SysMLPackage;
 import org.omg.sysml.util.SysMLUtil;
 import org.omg.sysml.xtext.SysMLStandaloneSetup;
+import org.osate.sysml.util.LibrarySnapshot;
 import org.osate.sysml.util.PrintingProgressMonitor;
 import org.osate.xtext.aadl2.Aadl2StandaloneSetup;
 
@@ -55,6 +59,18 @@ public class SysMLApiReader extends SysMLUtil {
 
 	private String sysmlLibraryPath = null;
 
+	/** Directory for the library snapshot and the cache of elements read via the REST API. */
+	private String cachePath = null;
+
+	/** The maximum number of concurrent element requests. */
+	private int concurrency = 1;
+
+	/** The number of elements per request when reading all elements of a project. */
+	private int pageSize = 0;
+
+	/** Import projects in two passes without proxies for elements of the project. */
+	private boolean twoPass = false;
+
 	private Set<Resource> libraryResources = new HashSet<>();
 
 	private List<Resource> outputResources = null;
@@ -73,15 +89,25 @@ public class SysMLApiReader extends SysMLUtil {
 		if (n > 0) {
 			int i = 0;
 			while (i < n
-					&& ("-a".equals(args[i]) || "-b".equals(args[i]) || "-s".equals(args[i]) || "-v".equals(args[i]))) {
+					&& ("-a".equals(args[i]) || "-b".equals(args[i]) || "-s".equals(args[i]) || "-c".equals(args[i])
+							|| "-v".equals(args[i]) || "-t".equals(args[i])
+							|| "--page-size".equals(args[i]) || "--two-pass".equals(args[i]))) {
 				if ("-a".equals(args[i])) {
 					aadlLibraryPath = args[++i];
 				} else if ("-b".equals(args[i])) {
 					baseURL = args[++i];
 				} else if ("-s".equals(args[i])) {
 					sysmlLibraryPath = args[++i];
+				} else if ("-c".equals(args[i])) {
+					cachePath = args[++i];
 				} else if ("-v".equals(args[i])) {
 					verbose = true;
+				} else if ("-t".equals(args[i])) {
+					concurrency = Integer.parseInt(args[++i]);
+				} else if ("--page-size".equals(args[i])) {
+					pageSize = Integer.parseInt(args[++i]);
+				} else if ("--two-pass".equals(args[i])) {
+					twoPass = true;
 				}
 				i++;
 			}
@@ -96,7 +122,20 @@ public class SysMLApiReader extends SysMLUtil {
 	protected void process(String projectName) {
 		var monitor = verbose ? new PrintingProgressMonitor(System.out) : new NullProgressMonitor();
 		var apiAccess = new SysMLApiAccess(baseURL, getResourceSet(), libraryResources, monitor);
-		outputResources = apiAccess.importProject(projectName);
+		apiAccess.setConcurrency(concurrency);
+		apiAccess.setPageSize(pageSize);
+		apiAccess.setTwoPass(twoPass);
+		try (var cache = cachePath == null ? null : new CommitCache(Paths.get(cachePath))) {
+			apiAccess.setCache(cache);
+			outputResources = apiAccess.importProject(projectName);
+			if (verbose) {
+				System.out.println("Fetched " + apiAccess.getFetchRequests() + " elements for "
+						+ apiAccess.getFetchLookups() + " lookups, deduplication ratio "
+						+ String.format(Locale.ROOT, "%.2f", apiAccess.getDeduplicationRatio()));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("cannot use element cache in " + cachePath, e);
+		}
 
 		printImportedSysML(outputResources);
 	}
@@ -130,20 +169,45 @@ public class SysMLApiReader extends SysMLUtil {
 		}
 	}
 
+	/**
+	 * Read the SysML standard library and the SysML library for AADL. If a cache directory 
+	 * is set, the libraries are restored from a snapshot if it matches the library sources. 
+	 * Otherwise the libraries are parsed and a new snapshot is saved.
+	 */
+	private void readLibraries() {
+		if (cachePath == null) {
+			libraryResources.addAll(parseLibraries());
+		} else {
+			var snapshot = new LibrarySnapshot(Paths.get(cachePath), sysmlLibraryPath, aadlLibraryPath);
+			libraryResources
+					.addAll(snapshot.loadOrParse(getResourceSet(), this::parseLibraries, this::addResourceToIndex));
+		}
+	}
+
+	/**
+	 * Parse the SysML standard library and the SysML library for AADL.
+	 * @return the library resources that are input resources
+	 */
+	private Collection<Resource> parseLibraries() {
+		var inputs = new HashSet<Resource>();
+		if (sysmlLibraryPath != null) {
+			readAll(sysmlLibraryPath, true);
+			inputs.addAll(getInputResources());
+			getInputResources().clear();
+		}
+		if (aadlLibraryPath != null) {
+			readAll(aadlLibraryPath, true);
+			inputs.addAll(getInputResources());
+			getInputResources().clear();
+		}
+		return inputs;
+	}
+
 	public void run(String[] args) {
 		args = processArgs(args);
 
 		if (args != null) {
-			if (sysmlLibraryPath != null) {
-				readAll(sysmlLibraryPath, true);
-				libraryResources.addAll(getInputResources());
-				getInputResources().clear();
-			}
-			if (aadlLibraryPath != null) {
-				readAll(aadlLibraryPath, true);
-				libraryResources.addAll(getInputResources());
-				getInputResources().clear();
-			}
+			readLibraries();
 			for (var arg : args) {
 				process(arg);
 			}
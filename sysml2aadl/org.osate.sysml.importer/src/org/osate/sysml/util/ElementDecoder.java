@@ -0,0 +1,396 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Relationship;
+import org.omg.sysml.lang.sysml.SysMLPackage;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes elements from the JSON returned by the SysML REST API directly into
+ * org.omg.sysml.lang.sysml.Element objects. Each JSON property is mapped onto the structural
+ * feature of the same name while it is read, no intermediate maps are created. Elements that
+ * have already been read by the API client can be added, too.
+ * 
+ * The elements are decoded first, references are kept as IDs. When all elements of a commit
+ * have been read, {@link #link(Resource)} builds the containment tree like the recursive import
+ * of the elements and then sets the references.
+ */
+public class ElementDecoder {
+
+	private final ElementHelper elementHelper;
+
+	private final LibraryIndex libraryElements;
+
+	/** The decoded elements by ID, in the order they were read. */
+	private final Map<String, DecodedElement> elements = new LinkedHashMap<>();
+
+	private static class DecodedElement {
+
+		final Element element;
+
+		boolean hasOwner;
+
+		/** IDs of the owned relationships, or of the owned related elements of a relationship. */
+		List<String> owned = List.of();
+
+		final List<PopulationPlan.Reference> references = new ArrayList<>();
+
+		/** The IDs of the referenced elements for each reference. */
+		final List<List<String>> targets = new ArrayList<>();
+
+		DecodedElement(Element element) {
+			this.element = element;
+		}
+	}
+
+	public ElementDecoder(ElementHelper elementHelper) {
+		this.elementHelper = elementHelper;
+		this.libraryElements = elementHelper.getLibraryElements();
+	}
+
+	/**
+	 * Read one element from a JSON object. Properties that appear before the element's type
+	 * are buffered.
+	 * @param in the reader positioned at the start of the object
+	 * @return the element, or null if the type is unknown
+	 * @throws IOException
+	 */
+	public Element read(JsonReader in) throws IOException {
+		String id = null;
+		DecodedElement d = null;
+		boolean unknown = false;
+		boolean hasOwner = false;
+		Map<String, JsonElement> buffered = null;
+
+		in.beginObject();
+		while (in.hasNext()) {
+			var name = in.nextName();
+			if ("@id".equals(name)) {
+				id = in.nextString();
+			} else if ("@type".equals(name)) {
+				var eClass = (EClass) SysMLPackage.eINSTANCE.getEClassifier(in.nextString());
+				if (eClass == null) {
+					unknown = true;
+				} else {
+					d = new DecodedElement((Element) EcoreUtil.create(eClass));
+				}
+			} else if ("owner".equals(name)) {
+				hasOwner = !readIds(in).isEmpty();
+			} else if (d != null) {
+				readFeature(d, name, in);
+			} else if (unknown) {
+				in.skipValue();
+			} else {
+				if (buffered == null) {
+					buffered = new LinkedHashMap<>();
+				}
+				buffered.put(name, JsonParser.parseReader(in));
+			}
+		}
+		in.endObject();
+
+		if (d == null || id == null) {
+			return null;
+		}
+		if (buffered != null) {
+			for (var entry : buffered.entrySet()) {
+				readFeature(d, entry.getKey(), new JsonReader(new StringReader(entry.getValue().toString())));
+			}
+		}
+		d.hasOwner = hasOwner;
+		elements.put(id, d);
+		return d.element;
+	}
+
+	/**
+	 * Read one element from a model element returned by the API client.
+	 * @param me the model element
+	 * @return the element, or null if the type is unknown
+	 */
+	@SuppressWarnings("unchecked")
+	public Element read(org.omg.sysml.model.Element me) {
+		var id = (String) me.get("@id");
+		var eClass = (EClass) SysMLPackage.eINSTANCE.getEClassifier((String) me.get("@type"));
+		if (id == null || eClass == null) {
+			return null;
+		}
+		var d = new DecodedElement((Element) EcoreUtil.create(eClass));
+		d.hasOwner = me.get("owner") != null;
+		elementHelper.populateAttributes(d.element, me);
+		for (var r : PopulationPlan.get(eClass).references) {
+			var value = me.get(r.name());
+			if (value == null) {
+				continue;
+			}
+			var ids = new ArrayList<String>();
+			for (var ref : ElementHelper.forceList(value)) {
+				var refId = ((Map<String, String>) ref).get("@id");
+				if (refId != null) {
+					ids.add(refId);
+				}
+			}
+			addReference(d, r, ids);
+		}
+		elements.put(id, d);
+		return d.element;
+	}
+
+	/**
+	 * Read the value of a property into the feature of the same name. Attributes are set
+	 * immediately, the IDs of referenced elements are kept until the elements are linked.
+	 */
+	private void readFeature(DecodedElement d, String name, JsonReader in) throws IOException {
+		var feature = PopulationPlan.get(d.element.eClass()).getFeature(name);
+		if (feature instanceof PopulationPlan.Attribute a) {
+			readAttribute(d.element, a, in);
+		} else if (feature instanceof PopulationPlan.Reference r) {
+			addReference(d, r, readIds(in));
+		} else {
+			in.skipValue();
+		}
+	}
+
+	/**
+	 * Keep the IDs of referenced elements until the elements are linked. The owned relationships
+	 * of an element and the owned related elements of a relationship are kept for building the
+	 * containment tree.
+	 */
+	private void addReference(DecodedElement d, PopulationPlan.Reference r, List<String> ids) {
+		if (r.containment()) {
+			if (r.ref() == SysMLPackage.Literals.RELATIONSHIP__OWNED_RELATED_ELEMENT) {
+				d.owned = ids;
+			} else if (!(d.element instanceof Relationship)) {
+				d.owned = ids;
+			}
+		} else if (!ids.isEmpty()) {
+			d.references.add(r);
+			d.targets.add(ids);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readAttribute(EObject eo, PopulationPlan.Attribute a, JsonReader in) throws IOException {
+		try {
+			if (a.isMany() && in.peek() == JsonToken.BEGIN_ARRAY) {
+				var attrList = (List<Object>) eo.eGet(a.attr());
+				in.beginArray();
+				while (in.hasNext()) {
+					var value = readScalar(in);
+					if (value != null) {
+						attrList.add(a.convert() ? EcoreUtil.createFromString(a.type(), value) : value);
+					}
+				}
+				in.endArray();
+			} else {
+				var value = readScalar(in);
+				if (value != null) {
+					var v = a.convert() ? EcoreUtil.createFromString(a.type(), value) : value;
+					if (a.isMany()) {
+						((List<Object>) eo.eGet(a.attr())).add(v);
+					} else {
+						eo.eSet(a.attr(), v);
+					}
+				}
+			}
+		} catch (UnsupportedOperationException uoe) {
+			// can't set, ignore
+		}
+	}
+
+	/**
+	 * Read a string, number, or boolean value as string.
+	 * @return the value or null for other values
+	 */
+	private static String readScalar(JsonReader in) throws IOException {
+		switch (in.peek()) {
+		case STRING:
+		case NUMBER:
+			return in.nextString();
+		case BOOLEAN:
+			return String.valueOf(in.nextBoolean());
+		default:
+			in.skipValue();
+			return null;
+		}
+	}
+
+	/**
+	 * Read the IDs from a reference value, which is null, an object with an @id property, or an
+	 * array of such objects.
+	 */
+	private static List<String> readIds(JsonReader in) throws IOException {
+		switch (in.peek()) {
+		case BEGIN_OBJECT:
+			var id = readId(in);
+			return id == null ? List.of() : List.of(id);
+		case BEGIN_ARRAY:
+			var ids = new ArrayList<String>();
+			in.beginArray();
+			while (in.hasNext()) {
+				if (in.peek() == JsonToken.BEGIN_OBJECT) {
+					var ref = readId(in);
+					if (ref != null) {
+						ids.add(ref);
+					}
+				} else {
+					in.skipValue();
+				}
+			}
+			in.endArray();
+			return ids;
+		default:
+			in.skipValue();
+			return List.of();
+		}
+	}
+
+	private static String readId(JsonReader in) throws IOException {
+		String id = null;
+		in.beginObject();
+		while (in.hasNext()) {
+			if ("@id".equals(in.nextName())) {
+				id = in.nextString();
+			} else {
+				in.skipValue();
+			}
+		}
+		in.endObject();
+		return id;
+	}
+
+	/**
+	 * Add the decoded elements to a resource and set their references. Root namespaces, i.e.,
+	 * namespaces without owner, are added to the resource. Owned relationships and the owned
+	 * related elements of owning memberships are added to their owners. The related elements
+	 * of other relationships are added to the owner of the relationship.
+	 * 
+	 * Elements that are not contained in a root namespace are dropped. References to library
+	 * elements and to elements in the resource are set directly, other references are set to
+	 * proxies.
+	 * @param res the resource
+	 * @return the root namespaces
+	 */
+	public List<Element> link(Resource res) {
+		var roots = new ArrayList<Element>();
+		for (var d : elements.values()) {
+			if (!d.hasOwner && d.element.eClass() == SysMLPackage.Literals.NAMESPACE) {
+				attach(res, d, null);
+				roots.add(d.element);
+			}
+		}
+		for (var d : elements.values()) {
+			if (d.element.eResource() == res) {
+				setReferences(res, d);
+			}
+		}
+		elements.clear();
+		return roots;
+	}
+
+	private void attach(Resource res, DecodedElement d, Element owner) {
+		var e = d.element;
+		if (owner == null) {
+			res.getContents().add(e);
+		} else if (owner instanceof Relationship r) {
+			r.getOwnedRelatedElement().add(e);
+		} else {
+			owner.getOwnedRelationship().add((Relationship) e);
+		}
+		for (var id : d.owned) {
+			var child = elements.get(id);
+			if (child == null || child.element.eResource() != null) {
+				continue;
+			}
+			if (!(e instanceof Relationship)) {
+				attach(res, child, e);
+			} else if (e.eClass() == SysMLPackage.Literals.OWNING_MEMBERSHIP) {
+				attach(res, child, e);
+			} else {
+				attach(res, child, owner);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void setReferences(Resource res, DecodedElement d) {
+		var eo = d.element;
+		for (int i = 0; i < d.references.size(); i++) {
+			var r = d.references.get(i);
+			var ref = r.ref();
+			var type = r.type();
+			var ids = d.targets.get(i);
+			if (r.isMany()) {
+				var refList = (List<EObject>) eo.eGet(ref);
+				for (var id : ids) {
+					var elem = resolve(res, id);
+					if (elem != null) {
+						refList.add(elem);
+					} else {
+						elementHelper.addProxy(res, refList, ref, type, id);
+					}
+				}
+			} else {
+				var id = ids.get(0);
+				var elem = resolve(res, id);
+				if (elem != null) {
+					eo.eSet(ref, elem);
+				} else {
+					elementHelper.addProxy(res, eo, ref, type, id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find a library element or an element in the resource.
+	 * @return the element or null
+	 */
+	private Element resolve(Resource res, String id) {
+		var elem = libraryElements.get(id);
+		if (elem == null) {
+			var d = elements.get(id);
+			if (d != null && d.element.eResource() == res) {
+				elem = d.element;
+			}
+		}
+		return elem;
+	}
+
+}
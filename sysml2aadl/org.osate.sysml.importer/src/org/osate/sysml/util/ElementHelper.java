@@ -30,6 +30,7 @@ import java.util.regex.Pattern;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.omg.sysml.lang.sysml.Element;
@@ -44,15 +45,19 @@ import org.omg.sysml.lang.sysml.SysMLPackage;
 public final class ElementHelper {
 
 	/**
-	 * A map from ID to library element with that ID. 
+	 * Index to look up library elements by ID. 
 	 * Used to avoid creating proxies for library elements.
 	 */
-	private Map<String, Element> libraryElements;
+	private LibraryIndex libraryElements;
 
-	public ElementHelper(Map<String, Element> libraryElements) {
+	public ElementHelper(LibraryIndex libraryElements) {
 		this.libraryElements = libraryElements;
 	}
 
+	LibraryIndex getLibraryElements() {
+		return libraryElements;
+	}
+
 	/**
 	 * Convert an org.omg.sysml.model.Element to an org.omg.sysml.lang.sysml.Element.
 	 * @param res the resource for the new element
@@ -86,37 +91,31 @@ public final class ElementHelper {
 	 */
 	@SuppressWarnings("unchecked")
 	protected void populateAttributes(EObject eo, org.omg.sysml.model.Element me) {
-		var eClass = eo.eClass();
-
-		for (var attr : eClass.getEAllAttributes()) {
-			if (attr.isChangeable() && !attr.isDerived()) {
-				var name = attr.getName();
-				var type = attr.getEAttributeType();
-				var value = me.get(name);
-				if (value != null) {
-					if (attr.isMany()) {
-						var attrList = (List<Object>) eo.eGet(attr);
-						var valueList = (List<Object>) forceList(value);
-						for (var v : valueList) {
-							if (v instanceof String str) {
-								v = EcoreUtil.createFromString(type, str);
-							}
-							try {
-								attrList.add(v);
-							} catch (UnsupportedOperationException uoe) {
-								// can't set, ignore
-							}
-						}
-					} else {
-						if (!"String".equals(type.getName()) && value instanceof String str) {
-							value = EcoreUtil.createFromString(type, str);
+		for (var a : PopulationPlan.get(eo.eClass()).attributes) {
+			var value = me.get(a.name());
+			if (value != null) {
+				if (a.isMany()) {
+					var attrList = (List<Object>) eo.eGet(a.attr());
+					var valueList = (List<Object>) forceList(value);
+					for (var v : valueList) {
+						if (a.convert() && v instanceof String str) {
+							v = EcoreUtil.createFromString(a.type(), str);
 						}
 						try {
-							eo.eSet(attr, value);
+							attrList.add(v);
 						} catch (UnsupportedOperationException uoe) {
 							// can't set, ignore
 						}
 					}
+				} else {
+					if (a.convert() && value instanceof String str) {
+						value = EcoreUtil.createFromString(a.type(), str);
+					}
+					try {
+						eo.eSet(a.attr(), value);
+					} catch (UnsupportedOperationException uoe) {
+						// can't set, ignore
+					}
 				}
 			}
 		}
@@ -132,53 +131,49 @@ public final class ElementHelper {
 	 */
 	@SuppressWarnings("unchecked")
 	protected void populateReferences(Resource res, EObject eo, org.omg.sysml.model.Element me) {
-		var eClass = eo.eClass();
-
-		for (var ref : eClass.getEAllReferences()) {
-			var name = ref.getName();
-			var type = ref.getEReferenceType();
+		for (var r : PopulationPlan.get(eo.eClass()).references) {
+			var ref = r.ref();
+			var type = r.type();
 
-			if (type != null && ref.isChangeable() && !ref.isDerived()) {
-				if (ref.isMany() && !"ownedRelationship".equals(name)) {
-					var refList = (List<EObject>) eo.eGet(ref);
-					var valueList = (List<Map<String, String>>) forceList(me.get(name));
+			if (r.isMany() && ref != SysMLPackage.Literals.ELEMENT__OWNED_RELATIONSHIP) {
+				var refList = (List<EObject>) eo.eGet(ref);
+				var valueList = (List<Map<String, String>>) forceList(me.get(r.name()));
 
-					refList.clear();
-					for (var value : valueList) {
-						var id = (String) value.get("@id");
-						var elem = libraryElements.get(id);
+				refList.clear();
+				for (var value : valueList) {
+					var id = (String) value.get("@id");
+					var elem = libraryElements.get(id);
 
-						if (elem == null) {
-							elem = (Element) res.getEObject(id);
-						}
-						if (elem != null) {
-							refList.add(elem);
-						} else {
-							addProxy(res, refList, ref, type, (String) value.get("@id"));
-						}
+					if (elem == null) {
+						elem = (Element) res.getEObject(id);
 					}
-				}
-				if (!ref.isMany() && !"ownedRelatedElement".equals(name)) {
-					var obj = me.get(name);
-					if (obj instanceof List<?> l) {
-						if (l.size() < 1)
-							return;
-						obj = l.get(0);
+					if (elem != null) {
+						refList.add(elem);
+					} else {
+						addProxy(res, refList, ref, type, (String) value.get("@id"));
 					}
-					var value = (Map<String, String>) obj;
+				}
+			}
+			if (!r.isMany()) {
+				var obj = me.get(r.name());
+				if (obj instanceof List<?> l) {
+					if (l.size() < 1)
+						return;
+					obj = l.get(0);
+				}
+				var value = (Map<String, String>) obj;
 
-					if (value != null) {
-						var id = (String) value.get("@id");
-						var elem = libraryElements.get(id);
+				if (value != null) {
+					var id = (String) value.get("@id");
+					var elem = libraryElements.get(id);
 
-						if (elem == null) {
-							elem = (Element) res.getEObject(id);
-						}
-						if (elem != null) {
-							eo.eSet(ref, elem);
-						} else {
-							addProxy(res, eo, ref, type, (String) value.get("@id"));
-						}
+					if (elem == null) {
+						elem = (Element) res.getEObject(id);
+					}
+					if (elem != null) {
+						eo.eSet(ref, elem);
+					} else {
+						addProxy(res, eo, ref, type, (String) value.get("@id"));
 					}
 				}
 			}
@@ -195,17 +190,18 @@ public final class ElementHelper {
 	 * @param id the ID of the referenced element
 	 */
 	protected void addProxy(Resource res, EObject eo, EReference ref, EClass type, String id) {
-		Element proxy = null;
+		var plan = PopulationPlan.get(eo.eClass());
+		var proxy = (Element) ProxyUtil.createProxy(res, plan.getProxyType(ref, type), id);
 		try {
-			proxy = (Element) ProxyUtil.createProxy(res, type, id);
 			eo.eSet(ref, proxy);
 		} catch (IllegalArgumentException iae) {
-			// different type because of redefinition
+			// different type because of a redefinition that is not in the plan
 			// exception message contains name of expected type
+			proxy = null;
 			var m = pattern.matcher(iae.getMessage());
 			if (m.find()) {
-				var typeName = m.group(1);
-				type = (EClass) SysMLPackage.eINSTANCE.getEClassifier(typeName);
+				type = (EClass) SysMLPackage.eINSTANCE.getEClassifier(m.group(1));
+				plan.setProxyType(ref, type);
 				proxy = (Element) ProxyUtil.createProxy(res, type, id);
 				eo.eSet(ref, proxy);
 			}
@@ -225,22 +221,27 @@ public final class ElementHelper {
 	 * @param id the ID of the referenced element
 	 */
 	protected void addProxy(Resource res, List<EObject> refList, EReference ref, EClass type, String id) {
-		Element proxy = null;
+		var plan = PopulationPlan.get(ref.getEContainingClass());
+		if (refList instanceof EStructuralFeature.Setting setting) {
+			plan = PopulationPlan.get(setting.getEObject().eClass());
+		}
+		var proxy = (Element) ProxyUtil.createProxy(res, plan.getProxyType(ref, type), id);
 		try {
-			proxy = (Element) ProxyUtil.createProxy(res, type, id);
 			refList.add(proxy);
 		} catch (IllegalArgumentException iae) {
-			// different type because of redefinition
+			// different type because of a redefinition that is not in the plan
 			// exception message contains name of expected type
+			proxy = null;
 			var m = pattern.matcher(iae.getMessage());
 			if (m.find()) {
-				var typeName = m.group(1);
-				type = (EClass) SysMLPackage.eINSTANCE.getEClassifier(typeName);
+				type = (EClass) SysMLPackage.eINSTANCE.getEClassifier(m.group(1));
+				plan.setProxyType(ref, type);
 				proxy = (Element) ProxyUtil.createProxy(res, type, id);
 				refList.add(proxy);
 			}
 		} catch (UnsupportedOperationException uoe) {
 			// can't set, ignore
+			proxy = null;
 		}
 		if (proxy != null) {
 			res.getContents().add(proxy);
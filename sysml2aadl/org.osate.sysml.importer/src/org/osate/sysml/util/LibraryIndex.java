@@ -0,0 +1,277 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Relationship;
+
+/**
+ * Index of the named elements in the SysML library resources by element ID. There is one index
+ * per resource set, it is shared by the REST API import and the conversion to AADL. The index is
+ * built when it is first used and is thread safe. Library resources passed by later users of the
+ * index are added to it, the index is then rebuilt on next use.
+ * 
+ * Element IDs are UUIDs. They are stored as two longs in an open addressing hash table, which
+ * avoids keeping a string and a map entry per element. IDs that are not UUIDs are kept in a map.
+ */
+public final class LibraryIndex {
+
+	/** Adapter that attaches the index to a resource set. */
+	private static class IndexAdapter extends AdapterImpl {
+
+		final LibraryIndex index;
+
+		IndexAdapter(LibraryIndex index) {
+			this.index = index;
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == LibraryIndex.class;
+		}
+	}
+
+	/**
+	 * The hash table of the index, it is not modified after it has been built.
+	 * @param keys the most and least significant bits of the IDs, two entries per slot
+	 * @param elements the elements, one entry per slot, null marks an empty slot
+	 * @param otherElements elements with IDs that are not UUIDs
+	 * @param size the number of elements
+	 */
+	private record Table(long[] keys, Element[] elements, Map<String, Element> otherElements, int size) {
+	}
+
+	/** The library resources to index, guarded by this. */
+	private final List<Resource> libraryResources = new ArrayList<>();
+
+	/** The table, null until it has been built and after library resources have been added. */
+	private volatile Table table;
+
+	private LibraryIndex() {
+	}
+
+	/**
+	 * Get the library index for a resource set. The index is created on first call for a 
+	 * resource set. Library resources that are not yet in the index are added to it.
+	 * @param rs the resource set
+	 * @param libraryResources the library resources
+	 * @return the index
+	 */
+	public static LibraryIndex get(ResourceSet rs, Collection<Resource> libraryResources) {
+		LibraryIndex index;
+		synchronized (rs) {
+			var adapter = (IndexAdapter) EcoreUtil.getExistingAdapter(rs, LibraryIndex.class);
+			if (adapter == null) {
+				adapter = new IndexAdapter(new LibraryIndex());
+				rs.eAdapters().add(adapter);
+			}
+			index = adapter.index;
+		}
+		index.addResources(libraryResources);
+		return index;
+	}
+
+	/**
+	 * Add library resources that are not yet indexed. The index is rebuilt on next use if
+	 * any resource was added.
+	 * @param resources the library resources
+	 */
+	private synchronized void addResources(Collection<Resource> resources) {
+		var added = false;
+		for (var r : resources) {
+			if (!libraryResources.contains(r)) {
+				libraryResources.add(r);
+				added = true;
+			}
+		}
+		if (added) {
+			table = null;
+		}
+	}
+
+	/**
+	 * Look up a library element.
+	 * @param id the element ID
+	 * @return the element with this ID, or null if there is no such library element
+	 */
+	public Element get(String id) {
+		if (id == null) {
+			return null;
+		}
+		var t = getTable();
+		if (!isUUID(id)) {
+			return t.otherElements().get(id);
+		}
+		var msb = parseHex(id, 0, 8, 9, 13, 14, 18);
+		var lsb = parseHex(id, 19, 23, 24, 36, 36, 36);
+		var keys = t.keys();
+		var elements = t.elements();
+		var mask = elements.length - 1;
+		for (var i = hash(msb, lsb) & mask;; i = (i + 1) & mask) {
+			var e = elements[i];
+			if (e == null) {
+				return null;
+			}
+			if (keys[2 * i] == msb && keys[2 * i + 1] == lsb) {
+				return e;
+			}
+		}
+	}
+
+	/**
+	 * Check if there is a library element with the given ID.
+	 * @param id the element ID
+	 * @return true iff the index contains an element with this ID
+	 */
+	public boolean contains(String id) {
+		return get(id) != null;
+	}
+
+	/**
+	 * Get the number of indexed elements. 
+	 * @return the number of elements
+	 */
+	public int size() {
+		return getTable().size();
+	}
+
+	private Table getTable() {
+		var t = table;
+		if (t == null) {
+			synchronized (this) {
+				t = table;
+				if (t == null) {
+					t = build();
+					table = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Put all named library elements that are not relationships in a new table.
+	 */
+	private Table build() {
+		var named = new ArrayList<Element>();
+		for (var r : libraryResources) {
+			for (var iter = EcoreUtil.<Element>getAllContents(r, true); iter.hasNext();) {
+				var e = iter.next();
+				if (!(e instanceof Relationship)) {
+					if (e.getElementId() != null && e.getDeclaredName() != null) {
+						named.add(e);
+					}
+				}
+			}
+		}
+		var capacity = Integer.highestOneBit(Math.max(named.size(), 8) * 2 - 1) << 1;
+		var keys = new long[2 * capacity];
+		var elements = new Element[capacity];
+		var otherElements = new HashMap<String, Element>();
+		var size = 0;
+		for (var e : named) {
+			var id = e.getElementId();
+			if (isUUID(id)) {
+				if (put(keys, elements, parseHex(id, 0, 8, 9, 13, 14, 18), parseHex(id, 19, 23, 24, 36, 36, 36), e)) {
+					size++;
+				}
+			} else if (otherElements.putIfAbsent(id, e) == null) {
+				size++;
+			}
+		}
+		return new Table(keys, elements, otherElements, size);
+	}
+
+	/**
+	 * Add an element unless there is already an element with the same ID.
+	 * @return true if the element was added
+	 */
+	private static boolean put(long[] keys, Element[] elements, long msb, long lsb, Element e) {
+		var mask = elements.length - 1;
+		for (var i = hash(msb, lsb) & mask;; i = (i + 1) & mask) {
+			if (elements[i] == null) {
+				keys[2 * i] = msb;
+				keys[2 * i + 1] = lsb;
+				elements[i] = e;
+				return true;
+			}
+			if (keys[2 * i] == msb && keys[2 * i + 1] == lsb) {
+				return false;
+			}
+		}
+	}
+
+	private static int hash(long msb, long lsb) {
+		var h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+		h ^= h >>> 32;
+		return (int) (h ^ (h >>> 16));
+	}
+
+	/**
+	 * Check if a string is a UUID in the canonical 8-4-4-4-12 form.
+	 */
+	private static boolean isUUID(String id) {
+		if (id.length() != 36) {
+			return false;
+		}
+		for (var i = 0; i < 36; i++) {
+			var c = id.charAt(i);
+			if (i == 8 || i == 13 || i == 18 || i == 23) {
+				if (c != '-') {
+					return false;
+				}
+			} else if (Character.digit(c, 16) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parse the hex digits in three ranges of a string as one number.
+	 */
+	private static long parseHex(String s, int b1, int e1, int b2, int e2, int b3, int e3) {
+		long v = 0;
+		for (var i = b1; i < e1; i++) {
+			v = v << 4 | Character.digit(s.charAt(i), 16);
+		}
+		for (var i = b2; i < e2; i++) {
+			v = v << 4 | Character.digit(s.charAt(i), 16);
+		}
+		for (var i = b3; i < e3; i++) {
+			v = v << 4 | Character.digit(s.charAt(i), 16);
+		}
+		return v;
+	}
+
+}
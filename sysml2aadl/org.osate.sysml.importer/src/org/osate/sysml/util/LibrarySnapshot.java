@@ -0,0 +1,336 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Binary snapshot of the SysML library resources, i.e., the SysML standard library and the SysML
+ * library for AADL. Parsing the libraries with Xtext dominates the run time of short conversions.
+ * The snapshot stores the parsed resources in EMF binary format and restores them on later runs
+ * with their original URIs, so references into the libraries are resolved as before.
+ * 
+ * The snapshot contains a SHA-256 digest of the library source files. It is used only if the 
+ * digest matches the current source files, otherwise the libraries must be parsed and a new
+ * snapshot must be saved.
+ * 
+ * The snapshot file starts with a header containing a magic number, the format version, the
+ * digest, and the number of resources. It is followed by a block for each resource containing
+ * the resource URI, a flag for input resources, the length of the binary data, and the data.
+ */
+public class LibrarySnapshot {
+
+	/** Name of the snapshot file in the cache directory. */
+	public static final String FILE_NAME = "sysml-libraries.bin";
+
+	private static final int MAGIC = 0x53594c42; // "SYLB"
+
+	private static final int VERSION = 1;
+
+	/** The snapshot file. */
+	private final Path file;
+
+	/** The paths the library files are read from. */
+	private final List<String> libraryPaths;
+
+	/** Digest of the library source files, computed on first use. */
+	private String digest = null;
+
+	/** Resources restored from the snapshot. */
+	private List<Resource> resources = new ArrayList<>();
+
+	/** Restored resources that were input resources when the snapshot was created. */
+	private Set<Resource> inputResources = new HashSet<>();
+
+	/**
+	 * Create a snapshot for libraries read from the given paths.
+	 * @param cacheDirectory the directory containing the snapshot file
+	 * @param libraryPaths the files or directories containing the library sources, null entries
+	 * are ignored
+	 */
+	public LibrarySnapshot(Path cacheDirectory, String... libraryPaths) {
+		this.file = cacheDirectory.resolve(FILE_NAME);
+		this.libraryPaths = new ArrayList<>();
+		for (var p : libraryPaths) {
+			if (p != null) {
+				this.libraryPaths.add(p);
+			}
+		}
+	}
+
+	/**
+	 * Get the resources restored by {@link #load(ResourceSet)}.
+	 * @return the resources
+	 */
+	public List<Resource> getResources() {
+		return resources;
+	}
+
+	/**
+	 * Get the restored resources that were marked as input resources when the snapshot was saved.
+	 * @return the input resources
+	 */
+	public Set<Resource> getInputResources() {
+		return inputResources;
+	}
+
+	/**
+	 * Restore the library resources from the snapshot if it matches the library sources, otherwise
+	 * parse them and save a new snapshot. Errors reading or writing the snapshot are reported, the
+	 * libraries are parsed if the snapshot cannot be read.
+	 * @param rs the resource set
+	 * @param parser parses the libraries into the resource set and returns the input resources
+	 * @param restored called for each restored resource, e.g., to add it to an index
+	 * @return the library resources that are input resources
+	 */
+	public Collection<Resource> loadOrParse(ResourceSet rs, Supplier<Collection<Resource>> parser,
+			Consumer<Resource> restored) {
+		try {
+			if (load(rs)) {
+				resources.forEach(restored);
+				return inputResources;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		var first = rs.getResources().size();
+		var inputs = parser.get();
+		try {
+			save(rs, first, inputs);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return inputs;
+	}
+
+	/**
+	 * Restore the library resources from the snapshot file into a resource set. The file is
+	 * memory mapped, and the content of each resource is read from the mapped buffer.
+	 * @param rs the resource set
+	 * @return true iff the snapshot exists and matches the current library sources
+	 * @throws IOException if the snapshot cannot be read, no resources are added in this case
+	 */
+	public boolean load(ResourceSet rs) throws IOException {
+		if (!Files.exists(file)) {
+			return false;
+		}
+		try {
+			return loadResources(rs);
+		} catch (IOException | RuntimeException e) {
+			rs.getResources().removeAll(resources);
+			resources.clear();
+			inputResources.clear();
+			throw new IOException("cannot read library snapshot " + file, e);
+		}
+	}
+
+	private boolean loadResources(ResourceSet rs) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return false;
+			}
+			if (!getDigest().equals(readString(buffer))) {
+				return false;
+			}
+			var count = buffer.getInt();
+
+			// create all resources first such that references between them can be resolved
+			var blocks = new ArrayList<ByteBuffer>();
+			for (int i = 0; i < count; i++) {
+				var uri = URI.createURI(readString(buffer));
+				var input = buffer.get() != 0;
+				var length = buffer.getInt();
+				var block = buffer.slice();
+				block.limit(length);
+				buffer.position(buffer.position() + length);
+
+				var r = new BinaryResourceImpl(uri);
+				rs.getResources().add(r);
+				resources.add(r);
+				if (input) {
+					inputResources.add(r);
+				}
+				blocks.add(block);
+			}
+			for (int i = 0; i < count; i++) {
+				var r = resources.get(i);
+				var in = new BinaryResourceImpl.EObjectInputStream(new ByteBufferInputStream(blocks.get(i)), null);
+				in.loadResource(r);
+				r.setModified(false);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Save the library resources in a resource set to the snapshot file. All references in the
+	 * resources are resolved first. Resources loaded during resolution are included in the snapshot.
+	 * @param rs the resource set
+	 * @param first the index of the first library resource in the resource set
+	 * @param inputs the resources to mark as input resources
+	 * @throws IOException
+	 */
+	public void save(ResourceSet rs, int first, Collection<Resource> inputs) throws IOException {
+		var all = rs.getResources();
+		for (int i = first; i < all.size(); i++) {
+			EcoreUtil.resolveAll(all.get(i));
+		}
+		save(new ArrayList<>(all.subList(first, all.size())), inputs);
+	}
+
+	/**
+	 * Save library resources to the snapshot file.
+	 * @param libraryResources the resources read from the library paths
+	 * @param inputs the resources to mark as input resources
+	 * @throws IOException
+	 */
+	public void save(Collection<Resource> libraryResources, Collection<Resource> inputs) throws IOException {
+		Files.createDirectories(file.getParent());
+		var tmp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+		try (var out = new DataOutputStream(Files.newOutputStream(tmp))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(getDigest());
+			out.writeInt(libraryResources.size());
+			for (var r : libraryResources) {
+				var bytes = new ByteArrayOutputStream();
+				var eout = new BinaryResourceImpl.EObjectOutputStream(bytes, null);
+				eout.saveResource(r);
+				eout.flush();
+				out.writeUTF(r.getURI().toString());
+				out.writeBoolean(inputs.contains(r));
+				out.writeInt(bytes.size());
+				bytes.writeTo(out);
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Get the digest of the library source files. The digest covers the paths and contents 
+	 * of all *.sysml and *.kerml files below the library paths.
+	 * @return the digest as hex string
+	 * @throws IOException
+	 */
+	public String getDigest() throws IOException {
+		if (digest == null) {
+			MessageDigest md;
+			try {
+				md = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+			for (var p : libraryPaths) {
+				List<Path> files;
+				try (var stream = Files.walk(Paths.get(p))) {
+					files = stream.filter(Files::isRegularFile).filter(f -> {
+						var name = f.getFileName().toString();
+						return name.endsWith(".sysml") || name.endsWith(".kerml");
+					}).sorted().collect(Collectors.toList());
+				}
+				for (var f : files) {
+					md.update(f.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+					md.update(Files.readAllBytes(f));
+				}
+			}
+			var sb = new StringBuilder();
+			for (var b : md.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			digest = sb.toString();
+		}
+		return digest;
+	}
+
+	/**
+	 * Read a string written by DataOutput.writeUTF. Library URIs and digests are ASCII, for
+	 * which the modified UTF-8 encoding is the same as UTF-8.
+	 */
+	private static String readString(ByteBuffer buffer) {
+		var length = Short.toUnsignedInt(buffer.getShort());
+		var bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Input stream reading from a byte buffer.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			var n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
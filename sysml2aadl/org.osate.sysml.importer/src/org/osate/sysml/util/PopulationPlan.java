@@ -0,0 +1,176 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EReference;
+
+/**
+ * The features of an EClass that are set when an element is imported, computed once per EClass.
+ * Only changeable, non-derived features are included.
+ */
+final class PopulationPlan {
+
+	private static final Map<EClass, PopulationPlan> plans = new ConcurrentHashMap<>();
+
+	/**
+	 * An attribute to set.
+	 * @param attr the attribute
+	 * @param name the name of the attribute
+	 * @param type the type of the attribute
+	 * @param isMany true if the attribute is multi-valued
+	 * @param convert true if string values must be converted to the attribute type
+	 */
+	record Attribute(EAttribute attr, String name, EDataType type, boolean isMany, boolean convert) {
+	}
+
+	/**
+	 * A reference to set.
+	 * @param ref the reference
+	 * @param name the name of the reference
+	 * @param type the type of the referenced elements, or of the redefining reference in the EClass
+	 * @param isMany true if the reference is multi-valued
+	 * @param containment true for ownedRelationship and ownedRelatedElement, which are set
+	 *        by building the containment tree
+	 */
+	record Reference(EReference ref, String name, EClass type, boolean isMany, boolean containment) {
+	}
+
+	final Attribute[] attributes;
+
+	/** The references in the order of the EClass' references. */
+	final Reference[] references;
+
+	/** The attributes and references by name. */
+	private final Map<String, Object> features = new HashMap<>();
+
+	/** Proxy types found when a proxy of the reference type was rejected. */
+	private final Map<EReference, EClass> proxyTypes = new ConcurrentHashMap<>();
+
+	private PopulationPlan(EClass eClass) {
+		var attrs = new ArrayList<Attribute>();
+		for (var attr : eClass.getEAllAttributes()) {
+			if (attr.isChangeable() && !attr.isDerived()) {
+				var type = attr.getEAttributeType();
+				var a = new Attribute(attr, attr.getName(), type, attr.isMany(), !"String".equals(type.getName()));
+				attrs.add(a);
+				features.put(a.name(), a);
+			}
+		}
+		attributes = attrs.toArray(new Attribute[attrs.size()]);
+
+		var refs = new ArrayList<Reference>();
+		for (var ref : eClass.getEAllReferences()) {
+			var type = ref.getEReferenceType();
+			if (type != null && ref.isChangeable() && !ref.isDerived()) {
+				var name = ref.getName();
+				var r = new Reference(ref, name, getRedefiningType(eClass, ref), ref.isMany(),
+						"ownedRelationship".equals(name) || "ownedRelatedElement".equals(name));
+				refs.add(r);
+				features.put(name, r);
+			}
+		}
+		references = refs.toArray(new Reference[refs.size()]);
+	}
+
+	/**
+	 * Get the plan for an EClass.
+	 * @param eClass the EClass
+	 * @return the plan
+	 */
+	static PopulationPlan get(EClass eClass) {
+		return plans.computeIfAbsent(eClass, PopulationPlan::new);
+	}
+
+	/**
+	 * Get the most specific type of the references in an EClass that redefine a reference.
+	 * A value of the reference must be an instance of this type. Redefinitions are recorded as
+	 * "redefines" annotations in the SysML metamodel.
+	 * @param eClass the EClass
+	 * @param ref the reference
+	 * @return the type of the reference or of a redefining reference
+	 */
+	private static EClass getRedefiningType(EClass eClass, EReference ref) {
+		var type = ref.getEReferenceType();
+		for (var other : eClass.getEAllReferences()) {
+			if (other != ref && redefines(other, ref) && type.isSuperTypeOf(other.getEReferenceType())) {
+				type = other.getEReferenceType();
+			}
+		}
+		return type;
+	}
+
+	/**
+	 * Check if a reference redefines another reference, directly or indirectly.
+	 */
+	private static boolean redefines(EReference ref, EReference redefined) {
+		var annotation = ref.getEAnnotation("redefines");
+		if (annotation != null) {
+			for (var r : annotation.getReferences()) {
+				if (r == redefined || r instanceof EReference er && redefines(er, redefined)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the type of proxies for a reference.
+	 * @param ref the reference
+	 * @param type the type from the plan
+	 * @return the type to use for proxies
+	 */
+	EClass getProxyType(EReference ref, EClass type) {
+		var proxyType = proxyTypes.get(ref);
+		return proxyType != null ? proxyType : type;
+	}
+
+	/**
+	 * Record the type of proxies for a reference, for redefinitions that are not found in
+	 * the metamodel.
+	 * @param ref the reference
+	 * @param type the type to use for proxies
+	 */
+	void setProxyType(EReference ref, EClass type) {
+		proxyTypes.put(ref, type);
+	}
+
+	/**
+	 * Get a feature by name.
+	 * @param name the name of the feature
+	 * @return an {@link Attribute}, a {@link Reference}, or null if there is no such feature
+	 *         or it is not set on import
+	 */
+	Object getFeature(String name) {
+		return features.get(name);
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Creates proxies for elements of a resource. There is one factory per resource, it keeps one
+ * proxy URI per element ID so that all proxies for the same element share the URI. The factory
+ * is thread safe.
+ */
+public final class ProxyFactory {
+
+	/** Adapter that attaches the factory to a resource. */
+	private static class FactoryAdapter extends AdapterImpl {
+
+		final ProxyFactory factory;
+
+		FactoryAdapter(ProxyFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ProxyFactory.class;
+		}
+	}
+
+	private final Resource resource;
+
+	/** The resource URI the proxy URIs are based on. */
+	private volatile URI baseURI;
+
+	/** The proxy URIs by element ID. */
+	private final Map<String, URI> uris = new ConcurrentHashMap<>();
+
+	private ProxyFactory(Resource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * Get the proxy factory for a resource. The factory is created on first call for a resource.
+	 * @param res the resource
+	 * @return the factory
+	 */
+	public static ProxyFactory get(Resource res) {
+		synchronized (res) {
+			var adapter = (FactoryAdapter) EcoreUtil.getExistingAdapter(res, ProxyFactory.class);
+			if (adapter == null) {
+				adapter = new FactoryAdapter(new ProxyFactory(res));
+				res.eAdapters().add(adapter);
+			}
+			return adapter.factory;
+		}
+	}
+
+	/**
+	 * Create an EMF proxy object with the given eClass for the element with the given ID.
+	 * @param type the eClass of the proxy
+	 * @param id the ID of the element
+	 * @return the proxy
+	 */
+	public EObject createProxy(EClass type, String id) {
+		var proxy = (EObject) EcoreUtil.create(ProxyUtil.getInstantiableClass(type));
+		((InternalEObject) proxy).eSetProxyURI(getProxyURI(id));
+		return proxy;
+	}
+
+	/**
+	 * Get the URI of a proxy for the element with the given ID. The URIs are recreated if the
+	 * URI of the resource has changed.
+	 * @param id the ID of the element
+	 * @return the URI
+	 */
+	public URI getProxyURI(String id) {
+		var uri = resource.getURI();
+		if (uri != baseURI) {
+			synchronized (this) {
+				if (uri != baseURI) {
+					uris.clear();
+					baseURI = uri;
+				}
+			}
+		}
+		return uris.computeIfAbsent(id, i -> URI.createURI(uri.toString()).appendFragment(i));
+	}
+
+}
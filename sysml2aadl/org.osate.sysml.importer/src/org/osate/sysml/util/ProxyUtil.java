@@ -22,12 +22,14 @@
  */
 package org.osate.sysml.util;
 
-import org.eclipse.emf.common.util.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
  * Utility class to create proxy objects with a given ID.
@@ -37,6 +39,9 @@ public final class ProxyUtil {
 	private ProxyUtil() {
 	}
 
+	/** The instantiable subclass of each abstract EClass, computed once per EPackage. */
+	private static final Map<EPackage, Map<EClass, EClass>> instantiableClasses = new ConcurrentHashMap<>();
+
 	/**
 	 * Create an EMF proxy object with the given eCLass and ID.
 	 * @param res the resource for the proxy object
@@ -45,10 +50,7 @@ public final class ProxyUtil {
 	 * @return
 	 */
 	public static EObject createProxy(Resource res, EClass type, String id) {
-		var proxy = (EObject) EcoreUtil.create(getInstantiableClass(type));
-		var uri = URI.createURI(res.getURI().toString()).appendFragment(id);
-		((InternalEObject) proxy).eSetProxyURI(uri);
-		return proxy;
+		return ProxyFactory.get(res).createProxy(type, id);
 	}
 
 	/**
@@ -59,14 +61,30 @@ public final class ProxyUtil {
 	public static EClass getInstantiableClass(EClass target) {
 		if (!target.isAbstract())
 			return target;
-		for (var o : target.getEPackage().getEClassifiers()) {
-			if (o instanceof EClass eClass) {
-				if (!eClass.isAbstract() && target.isSuperTypeOf(eClass)) {
-					return eClass;
+		return instantiableClasses.computeIfAbsent(target.getEPackage(), ProxyUtil::findInstantiableClasses)
+				.get(target);
+	}
+
+	/**
+	 * Find the first concrete subclass in the package for each abstract eClass in a package.
+	 * @param ePackage the package
+	 * @return map from abstract eClass to instantiable eClass
+	 */
+	private static Map<EClass, EClass> findInstantiableClasses(EPackage ePackage) {
+		var classes = ePackage.getEClassifiers().stream().filter(EClass.class::isInstance).map(EClass.class::cast)
+				.toList();
+		var result = new HashMap<EClass, EClass>();
+		for (var target : classes) {
+			if (target.isAbstract()) {
+				for (var eClass : classes) {
+					if (!eClass.isAbstract() && target.isSuperTypeOf(eClass)) {
+						result.put(target, eClass);
+						break;
+					}
 				}
 			}
 		}
-		return null;
+		return result;
 	}
 
 }
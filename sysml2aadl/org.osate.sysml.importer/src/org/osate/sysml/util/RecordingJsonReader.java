@@ -0,0 +1,196 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JSON reader that reads one value from another reader and writes each token it reads to a
+ * string. This copies the JSON of an element while it is decoded, without building a tree of
+ * the element and parsing it again. Skipped values are copied as well. The copy is compact,
+ * strings and numbers are written as read.
+ */
+public class RecordingJsonReader extends JsonReader {
+
+	private final JsonReader in;
+
+	private final StringWriter text = new StringWriter();
+
+	private final JsonWriter out = new JsonWriter(text);
+
+	/**
+	 * Create a reader that records the tokens read from another reader.
+	 * @param in the reader positioned at the start of the value to record
+	 */
+	public RecordingJsonReader(JsonReader in) {
+		super(Reader.nullReader());
+		this.in = in;
+	}
+
+	/**
+	 * Get the JSON read so far.
+	 * @return the JSON text
+	 */
+	public String getJson() {
+		return text.toString();
+	}
+
+	@Override
+	public void beginArray() throws IOException {
+		in.beginArray();
+		out.beginArray();
+	}
+
+	@Override
+	public void endArray() throws IOException {
+		in.endArray();
+		out.endArray();
+	}
+
+	@Override
+	public void beginObject() throws IOException {
+		in.beginObject();
+		out.beginObject();
+	}
+
+	@Override
+	public void endObject() throws IOException {
+		in.endObject();
+		out.endObject();
+	}
+
+	@Override
+	public boolean hasNext() throws IOException {
+		return in.hasNext();
+	}
+
+	@Override
+	public JsonToken peek() throws IOException {
+		return in.peek();
+	}
+
+	@Override
+	public String nextName() throws IOException {
+		var name = in.nextName();
+		out.name(name);
+		return name;
+	}
+
+	@Override
+	public String nextString() throws IOException {
+		var number = in.peek() == JsonToken.NUMBER;
+		var value = in.nextString();
+		if (number) {
+			out.jsonValue(value);
+		} else {
+			out.value(value);
+		}
+		return value;
+	}
+
+	@Override
+	public boolean nextBoolean() throws IOException {
+		var value = in.nextBoolean();
+		out.value(value);
+		return value;
+	}
+
+	@Override
+	public void nextNull() throws IOException {
+		in.nextNull();
+		out.nullValue();
+	}
+
+	@Override
+	public double nextDouble() throws IOException {
+		return Double.parseDouble(nextString());
+	}
+
+	@Override
+	public long nextLong() throws IOException {
+		return Long.parseLong(nextString());
+	}
+
+	@Override
+	public int nextInt() throws IOException {
+		return Integer.parseInt(nextString());
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (in.peek()) {
+		case BEGIN_ARRAY:
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+			break;
+		case BEGIN_OBJECT:
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+			break;
+		case NAME:
+			nextName();
+			break;
+		case STRING:
+		case NUMBER:
+			nextString();
+			break;
+		case BOOLEAN:
+			nextBoolean();
+			break;
+		case NULL:
+			nextNull();
+			break;
+		default:
+			in.skipValue();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	@Override
+	public String getPath() {
+		return in.getPath();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " of " + in;
+	}
+
+}
@@ -0,0 +1,637 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.EcoreUtil2;
+import org.osate.aadl2.AadlPackage;
+import org.osate.aadl2.AbstractFeature;
+import org.osate.aadl2.Access;
+import org.osate.aadl2.AccessConnection;
+import org.osate.aadl2.BusAccess;
+import org.osate.aadl2.Classifier;
+import org.osate.aadl2.ComponentClassifier;
+import org.osate.aadl2.ComponentImplementation;
+import org.osate.aadl2.ComponentType;
+import org.osate.aadl2.ConnectedElement;
+import org.osate.aadl2.Connection;
+import org.osate.aadl2.ContainedNamedElement;
+import org.osate.aadl2.ContainmentPathElement;
+import org.osate.aadl2.DataAccess;
+import org.osate.aadl2.DataPort;
+import org.osate.aadl2.EventDataPort;
+import org.osate.aadl2.EventPort;
+import org.osate.aadl2.Feature;
+import org.osate.aadl2.FeatureConnection;
+import org.osate.aadl2.FeatureGroup;
+import org.osate.aadl2.FeatureGroupConnection;
+import org.osate.aadl2.IntegerLiteral;
+import org.osate.aadl2.ListValue;
+import org.osate.aadl2.NamedElement;
+import org.osate.aadl2.Parameter;
+import org.osate.aadl2.ParameterConnection;
+import org.osate.aadl2.PortConnection;
+import org.osate.aadl2.PropertyAssociation;
+import org.osate.aadl2.PropertyExpression;
+import org.osate.aadl2.PropertySet;
+import org.osate.aadl2.RangeValue;
+import org.osate.aadl2.ReferenceValue;
+import org.osate.aadl2.SubprogramAccess;
+import org.osate.aadl2.SubprogramGroupAccess;
+import org.osate.aadl2.Subcomponent;
+
+/**
+ * This class writes AADL text for the packages generated by the SysML to AADL converter.
+ * It supports the subset of AADL produced by the converter: component types and implementations,
+ * features, subcomponents, connections, and property associations with integer, range and
+ * reference list values. The text is written directly to a writer instead of going through
+ * the Xtext serializer. Resources containing other elements are written with the Xtext
+ * serializer instead.
+ */
+public class AADLTextEmitter {
+
+	/**
+	 * The names of the feature lists in a component type in the order in which the Xtext serializer
+	 * writes them.
+	 */
+	static final String[] featureOrder = { "DataPort", "EventDataPort", "EventPort", "FeatureGroup", "DataAccess",
+			"BusAccess", "SubprogramAccess", "SubprogramGroupAccess", "Parameter", "AbstractFeature" };
+
+	/**
+	 * The names of the subcomponent lists in a component implementation in the order in which the
+	 * Xtext serializer writes them.
+	 */
+	static final String[] subcomponentOrder = { "SystemSubcomponent", "SubprogramSubcomponent",
+			"SubprogramGroupSubcomponent", "ThreadSubcomponent", "ThreadGroupSubcomponent", "ProcessSubcomponent",
+			"ProcessorSubcomponent", "VirtualProcessorSubcomponent", "MemorySubcomponent", "DeviceSubcomponent",
+			"BusSubcomponent", "VirtualBusSubcomponent", "DataSubcomponent", "AbstractSubcomponent" };
+
+	/**
+	 * The names of the connection lists in a component implementation in the order in which the
+	 * Xtext serializer writes them.
+	 */
+	static final String[] connectionOrder = { "PortConnection", "AccessConnection", "FeatureGroupConnection",
+			"FeatureConnection", "ParameterConnection" };
+
+	private final Writer out;
+
+	/** The name of the package being written, references to other packages are qualified. */
+	private String packageName;
+
+	public AADLTextEmitter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Write the AADL text for a resource containing generated AADL packages to the file
+	 * given by the resource's URI.
+	 * @param r the resource
+	 * @throws IOException
+	 */
+	public static void save(Resource r) throws IOException {
+		save(r, Paths.get(r.getURI().toFileString()));
+	}
+
+	/**
+	 * Write the AADL text for a resource containing generated AADL packages to a file.
+	 * @param r the resource
+	 * @param path the file
+	 * @throws IOException
+	 */
+	public static void save(Resource r, Path path) throws IOException {
+		try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			new AADLTextEmitter(writer).emit(r);
+		}
+	}
+
+	/**
+	 * Save a resource as AADL text file unless the file already has the same content.
+	 * @param r the resource
+	 * @param path the file
+	 * @return true iff the file was written
+	 * @throws IOException
+	 */
+	public static boolean saveIfChanged(Resource r, Path path) throws IOException {
+		var text = new StringWriter();
+		new AADLTextEmitter(text).emit(r);
+		if (Files.exists(path) && Files.readString(path, StandardCharsets.UTF_8).contentEquals(text.getBuffer())) {
+			return false;
+		}
+		Files.writeString(path, text.getBuffer(), StandardCharsets.UTF_8);
+		return true;
+	}
+
+	/**
+	 * Write the AADL text for a resource to a file unless the resource contains an element that
+	 * the emitter doesn't support. Unlike {@link #save(Resource, Path)} this never falls back to
+	 * the Xtext serializer, which resolves references through global scopes over the resource set.
+	 * It only reads the AADL model, so it can run while other packages are being converted.
+	 * @param r the resource
+	 * @param path the file
+	 * @return true iff the file was written
+	 * @throws IOException
+	 */
+	public static boolean saveIfSupported(Resource r, Path path) throws IOException {
+		var text = emitText(r);
+		if (text == null) {
+			return false;
+		}
+		Files.writeString(path, text, StandardCharsets.UTF_8);
+		return true;
+	}
+
+	/**
+	 * Write the AADL text for all packages in a resource. If a package contains an element
+	 * that the emitter doesn't support, the resource is written with the Xtext serializer.
+	 * @param r the resource
+	 * @throws IOException
+	 */
+	public void emit(Resource r) throws IOException {
+		var text = emitText(r);
+		if (text != null) {
+			out.write(text);
+		} else {
+			var bytes = new ByteArrayOutputStream();
+			r.save(bytes, null);
+			out.write(bytes.toString(StandardCharsets.UTF_8));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Get the AADL text for all packages in a resource.
+	 * @param r the resource
+	 * @return the text, or null if a package contains an element that the emitter doesn't support
+	 * @throws IOException
+	 */
+	private static String emitText(Resource r) throws IOException {
+		var text = new StringWriter();
+		var emitter = new AADLTextEmitter(text);
+		try {
+			for (var eo : r.getContents()) {
+				if (eo instanceof AadlPackage pkg) {
+					emitter.emit(pkg);
+				}
+			}
+		} catch (UnsupportedElementException e) {
+			return null;
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Write the AADL text for a package.
+	 * @param pkg the package
+	 * @throws IOException
+	 * @throws UnsupportedElementException if the package contains an unsupported element
+	 */
+	private void emit(AadlPackage pkg) throws IOException, UnsupportedElementException {
+		packageName = pkg.getName();
+		out.write("package ");
+		out.write(packageName);
+		out.write("\npublic\n");
+		var section = pkg.getOwnedPublicSection();
+		if (section != null) {
+			var withs = section.getImportedUnits();
+			if (!withs.isEmpty()) {
+				out.write("\twith ");
+				for (int i = 0; i < withs.size(); i++) {
+					if (i > 0) {
+						out.write(", ");
+					}
+					out.write(withs.get(i).getName());
+				}
+				out.write(";\n");
+			}
+			var first = withs.isEmpty();
+			for (var c : section.getOwnedClassifiers()) {
+				if (!first) {
+					out.write('\n');
+				}
+				first = false;
+				if (c instanceof ComponentType ctype) {
+					emitType(ctype);
+				} else if (c instanceof ComponentImplementation cimpl) {
+					emitImplementation(cimpl);
+				} else {
+					throw unsupported(c);
+				}
+			}
+		}
+		out.write("end ");
+		out.write(packageName);
+		out.write(";\n");
+	}
+
+	/**
+	 * Write a component type.
+	 * @param ctype the component type
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void emitType(ComponentType ctype) throws IOException, UnsupportedElementException {
+		out.write('\t');
+		out.write(ctype.getCategory().getLiteral());
+		out.write(' ');
+		out.write(ctype.getName());
+		if (ctype.getExtended() != null) {
+			out.write(" extends ");
+			out.write(reference(ctype.getExtended()));
+		}
+		out.write('\n');
+		var header = true;
+		for (var name : featureOrder) {
+			for (var f : this.<Feature>ownedList(ctype, name)) {
+				if (header) {
+					out.write("\t\tfeatures\n");
+					header = false;
+				}
+				emitFeature(f);
+			}
+		}
+		emitProperties(ctype.getOwnedPropertyAssociations());
+		out.write("\tend ");
+		out.write(ctype.getName());
+		out.write(";\n");
+	}
+
+	/**
+	 * Write a component implementation.
+	 * @param cimpl the component implementation
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void emitImplementation(ComponentImplementation cimpl) throws IOException, UnsupportedElementException {
+		out.write('\t');
+		out.write(cimpl.getCategory().getLiteral());
+		out.write(" implementation ");
+		out.write(cimpl.getName());
+		if (cimpl.getExtended() != null) {
+			out.write(" extends ");
+			out.write(reference(cimpl.getExtended()));
+		}
+		out.write('\n');
+		var header = true;
+		for (var name : subcomponentOrder) {
+			for (var s : this.<Subcomponent>ownedList(cimpl, name)) {
+				if (header) {
+					out.write("\t\tsubcomponents\n");
+					header = false;
+				}
+				emitSubcomponent(s);
+			}
+		}
+		header = true;
+		for (var name : connectionOrder) {
+			for (var c : this.<Connection>ownedList(cimpl, name)) {
+				if (header) {
+					out.write("\t\tconnections\n");
+					header = false;
+				}
+				emitConnection(c);
+			}
+		}
+		emitProperties(cimpl.getOwnedPropertyAssociations());
+		out.write("\tend ");
+		out.write(cimpl.getName());
+		out.write(";\n");
+	}
+
+	/**
+	 * Write a feature declaration.
+	 * @param f the feature
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void emitFeature(Feature f) throws IOException, UnsupportedElementException {
+		out.write("\t\t\t");
+		out.write(f.getName());
+		out.write(": ");
+		if (f instanceof AbstractFeature af) {
+			writeDirection(af.isIn(), af.isOut());
+			out.write("feature");
+			writeClassifier(af, "abstractFeatureClassifier");
+		} else if (f instanceof DataPort dp) {
+			writeDirection(dp.isIn(), dp.isOut());
+			out.write("data port");
+			writeClassifier(dp, "dataFeatureClassifier");
+		} else if (f instanceof EventDataPort edp) {
+			writeDirection(edp.isIn(), edp.isOut());
+			out.write("event data port");
+			writeClassifier(edp, "dataFeatureClassifier");
+		} else if (f instanceof EventPort ep) {
+			writeDirection(ep.isIn(), ep.isOut());
+			out.write("event port");
+		} else if (f instanceof Parameter p) {
+			writeDirection(p.isIn(), p.isOut());
+			out.write("parameter");
+			writeClassifier(p, "dataFeatureClassifier");
+		} else if (f instanceof FeatureGroup fg) {
+			writeDirection(fg.isIn(), fg.isOut());
+			out.write("feature group");
+		} else if (f instanceof Access a) {
+			out.write(a.getKind().getLiteral());
+			if (a instanceof BusAccess ba) {
+				out.write(ba.isVirtual() ? " virtual bus access" : " bus access");
+				writeClassifier(a, "busFeatureClassifier");
+			} else if (a instanceof DataAccess) {
+				out.write(" data access");
+				writeClassifier(a, "dataFeatureClassifier");
+			} else if (a instanceof SubprogramAccess) {
+				out.write(" subprogram access");
+				writeClassifier(a, "subprogramFeatureClassifier");
+			} else if (a instanceof SubprogramGroupAccess) {
+				out.write(" subprogram group access");
+				writeClassifier(a, "subprogramGroupFeatureClassifier");
+			} else {
+				throw unsupported(f);
+			}
+		} else {
+			throw unsupported(f);
+		}
+		out.write(";\n");
+	}
+
+	/**
+	 * Write the direction of a directed feature followed by a space.
+	 * @param in true iff the feature is an in feature
+	 * @param out true iff the feature is an out feature
+	 * @throws IOException
+	 */
+	private void writeDirection(boolean in, boolean out) throws IOException {
+		if (in && out) {
+			this.out.write("in out ");
+		} else if (in) {
+			this.out.write("in ");
+		} else if (out) {
+			this.out.write("out ");
+		}
+	}
+
+	/**
+	 * Write the classifier of a feature, if there is one.
+	 * @param f the feature
+	 * @param sfname the name of the structural feature holding the classifier
+	 * @throws IOException
+	 */
+	private void writeClassifier(Feature f, String sfname) throws IOException {
+		var sf = f.eClass().getEStructuralFeature(sfname);
+		if (sf != null && f.eGet(sf) instanceof NamedElement c) {
+			out.write(' ');
+			out.write(reference(c));
+		}
+	}
+
+	/**
+	 * Write a subcomponent declaration.
+	 * @param s the subcomponent
+	 * @throws IOException
+	 */
+	private void emitSubcomponent(Subcomponent s) throws IOException {
+		out.write("\t\t\t");
+		out.write(s.getName());
+		out.write(": ");
+		if (s.getRefined() != null) {
+			out.write("refined to ");
+		}
+		out.write(s.getCategory().getLiteral());
+		var type = s.getSubcomponentType();
+		if (type != null) {
+			out.write(' ');
+			out.write(reference(type));
+		}
+		out.write(";\n");
+	}
+
+	/**
+	 * Write a connection declaration.
+	 * @param c the connection
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void emitConnection(Connection c) throws IOException, UnsupportedElementException {
+		out.write("\t\t\t");
+		out.write(c.getName());
+		out.write(": ");
+		if (c instanceof PortConnection) {
+			out.write("port ");
+		} else if (c instanceof AccessConnection ac) {
+			out.write(ac.getAccessCategory().getLiteral());
+			out.write(" access ");
+		} else if (c instanceof FeatureGroupConnection) {
+			out.write("feature group ");
+		} else if (c instanceof FeatureConnection) {
+			out.write("feature ");
+		} else if (c instanceof ParameterConnection) {
+			out.write("parameter ");
+		} else {
+			throw unsupported(c);
+		}
+		writeConnectedElement(c.getSource());
+		out.write(c.isBidirectional() ? " <-> " : " -> ");
+		writeConnectedElement(c.getDestination());
+		out.write(";\n");
+	}
+
+	/**
+	 * Write a connection end.
+	 * @param ce the connected element
+	 * @throws IOException
+	 */
+	private void writeConnectedElement(ConnectedElement ce) throws IOException {
+		if (ce.getContext() != null) {
+			out.write(ce.getContext().getName());
+			out.write('.');
+		}
+		out.write(ce.getConnectionEnd().getName());
+	}
+
+	/**
+	 * Write the properties section of a classifier.
+	 * @param pas the property associations
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void emitProperties(List<PropertyAssociation> pas) throws IOException, UnsupportedElementException {
+		if (pas.isEmpty()) {
+			return;
+		}
+		out.write("\t\tproperties\n");
+		for (var pa : pas) {
+			out.write("\t\t\t");
+			out.write(propertyName(pa));
+			out.write(" => ");
+			var values = pa.getOwnedValues();
+			if (values.size() != 1) {
+				throw unsupported(pa);
+			}
+			writeValue(values.get(0).getOwnedValue());
+			var appliesTo = pa.getAppliesTos();
+			if (!appliesTo.isEmpty()) {
+				out.write(" applies to ");
+				for (int i = 0; i < appliesTo.size(); i++) {
+					if (i > 0) {
+						out.write(", ");
+					}
+					writePath(appliesTo.get(i));
+				}
+			}
+			out.write(";\n");
+		}
+	}
+
+	/**
+	 * Get the name of the property in a property association.
+	 * Properties from predeclared property sets are not qualified.
+	 * @param pa the property association
+	 * @return the property name
+	 */
+	private String propertyName(PropertyAssociation pa) {
+		var prop = pa.getProperty();
+		var ps = EcoreUtil2.getContainerOfType(prop, PropertySet.class);
+		if (ps != null) {
+			for (var name : SysML2AADLConverter.predeclaredPS) {
+				if (name.equalsIgnoreCase(ps.getName())) {
+					return prop.getName();
+				}
+			}
+			return ps.getName() + "::" + prop.getName();
+		}
+		return prop.getName();
+	}
+
+	/**
+	 * Write a property value.
+	 * @param pe the property expression
+	 * @throws IOException
+	 * @throws UnsupportedElementException if an element is not supported
+	 */
+	private void writeValue(PropertyExpression pe) throws IOException, UnsupportedElementException {
+		if (pe instanceof IntegerLiteral il) {
+			out.write(Long.toString(il.getValue()));
+			if (il.getUnit() != null) {
+				out.write(' ');
+				out.write(il.getUnit().getName());
+			}
+		} else if (pe instanceof RangeValue rv) {
+			writeValue(rv.getMinimum());
+			out.write(" .. ");
+			writeValue(rv.getMaximum());
+			if (rv.getDelta() != null) {
+				out.write(" delta ");
+				writeValue(rv.getDelta());
+			}
+		} else if (pe instanceof ListValue lv) {
+			out.write('(');
+			var elements = lv.getOwnedListElements();
+			for (int i = 0; i < elements.size(); i++) {
+				if (i > 0) {
+					out.write(", ");
+				}
+				writeValue(elements.get(i));
+			}
+			out.write(')');
+		} else if (pe instanceof ReferenceValue rv) {
+			out.write("reference (");
+			writePath(rv);
+			out.write(')');
+		} else {
+			throw unsupported(pe);
+		}
+	}
+
+	/**
+	 * Write the path of a contained named element.
+	 * @param cne the contained named element
+	 * @throws IOException
+	 */
+	private void writePath(ContainedNamedElement cne) throws IOException {
+		ContainmentPathElement path = cne.getPath();
+		var first = true;
+		while (path != null) {
+			if (!first) {
+				out.write('.');
+			}
+			first = false;
+			out.write(path.getNamedElement().getName());
+			path = path.getPath();
+		}
+	}
+
+	/**
+	 * Get the name used to reference a classifier from the package being written.
+	 * Classifiers in other packages are qualified with their package name.
+	 * @param c the referenced element
+	 * @return the name
+	 */
+	private String reference(NamedElement c) {
+		if (c instanceof Classifier) {
+			var pkg = EcoreUtil2.getContainerOfType(c, AadlPackage.class);
+			if (pkg != null && !packageName.equals(pkg.getName())) {
+				return pkg.getName() + "::" + c.getName();
+			}
+		}
+		return c.getName();
+	}
+
+	/**
+	 * Get the elements of a containment list in a component classifier.
+	 * @param <T> the type of the list elements
+	 * @param cc the component classifier
+	 * @param name the eClass name of the list elements
+	 * @return the list, empty if the classifier has no such list
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends EObject> List<T> ownedList(ComponentClassifier cc, String name) {
+		var sf = cc.eClass().getEStructuralFeature("owned" + name);
+		return sf != null ? (List<T>) cc.eGet(sf) : List.of();
+	}
+
+	private static UnsupportedElementException unsupported(EObject eo) {
+		return new UnsupportedElementException("cannot write AADL text for " + eo.eClass().getName());
+	}
+
+	/**
+	 * Thrown when the emitter finds an element outside the subset it supports.
+	 */
+	private static class UnsupportedElementException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		UnsupportedElementException(String message) {
+			super(message);
+		}
+	}
+
+}
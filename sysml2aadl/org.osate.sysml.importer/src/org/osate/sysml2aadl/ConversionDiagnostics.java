@@ -0,0 +1,109 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.omg.sysml.lang.sysml.Element;
+
+/**
+ * Receives diagnostics about SysML elements during a conversion to AADL.
+ * 
+ * The converter checks {@link #isEnabled(Kind)} before reporting, and passes only a constant 
+ * message and the element. Names and IDs of elements are computed by the implementation when
+ * it needs them, so a disabled kind of diagnostic does not cost anything.
+ * Implementations must be thread safe if used for a parallel conversion.
+ */
+public interface ConversionDiagnostics {
+
+	/**
+	 * The kinds of diagnostics.
+	 */
+	enum Kind {
+		/** An element has been converted to AADL. */
+		CONVERTED,
+		/** An element has been skipped because it cannot be converted to AADL. */
+		SKIPPED,
+		/** An element has been converted, but some of its content has been ignored. */
+		WARNING
+	}
+
+	/** Diagnostics that ignore all reports. */
+	ConversionDiagnostics NONE = new ConversionDiagnostics() {
+
+		@Override
+		public boolean isEnabled(Kind kind) {
+			return false;
+		}
+
+		@Override
+		public void report(Kind kind, String message, Element element) {
+		}
+	};
+
+	/**
+	 * Check if diagnostics of a kind are recorded.
+	 * @param kind the kind of diagnostic
+	 * @return true if reports of this kind are recorded
+	 */
+	boolean isEnabled(Kind kind);
+
+	/**
+	 * Report a diagnostic for an element.
+	 * @param kind the kind of diagnostic
+	 * @param message the message, e.g., "converting part usage"
+	 * @param element the SysML element
+	 */
+	void report(Kind kind, String message, Element element);
+
+	/**
+	 * Create diagnostics that write to a logger. Converted elements are logged at level INFO,
+	 * skipped elements and warnings at level WARN. The message is followed by the qualified
+	 * name of the element.
+	 * @param logger the logger
+	 * @return the diagnostics
+	 */
+	static ConversionDiagnostics logging(Logger logger) {
+		return new ConversionDiagnostics() {
+
+			@Override
+			public boolean isEnabled(Kind kind) {
+				return logger.isEnabledFor(kind == Kind.CONVERTED ? Level.INFO : Level.WARN);
+			}
+
+			@Override
+			public void report(Kind kind, String message, Element element) {
+				var name = element.getQualifiedName();
+				if (name == null) {
+					name = "<unnamed>";
+				}
+				if (kind == Kind.CONVERTED) {
+					logger.info(message + " " + name);
+				} else {
+					logger.warn(message + " " + name);
+				}
+			}
+		};
+	}
+
+}
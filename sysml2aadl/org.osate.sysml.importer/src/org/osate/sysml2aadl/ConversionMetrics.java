@@ -0,0 +1,196 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Collects timing and heap usage for the phases of a conversion from SysML to AADL.
+ * For each phase the metrics record the total duration, the number of processed elements and
+ * the used heap before the phase starts and after it ends. A phase may run more than once, e.g., 
+ * once per file, in which case the durations and element counts are added up.
+ * 
+ * Each run of a phase is also recorded as a JFR event of type
+ * org.osate.sysml2aadl.ConversionPhase if flight recording is enabled.
+ */
+public class ConversionMetrics {
+
+	/**
+	 * The phases of a conversion.
+	 */
+	public enum Phase {
+		INPUT_PARSE("input parse"),
+		LIBRARY_INDEX("library index"),
+		PACKAGE_CONVERSION("package conversion"),
+		PROXY_RESOLUTION("proxy resolution"),
+		WITH_STATEMENTS("with statements"),
+		COPY("copy"),
+		SERIALIZATION("serialization");
+
+		private final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	/**
+	 * Measurements for one phase.
+	 */
+	private static class Record {
+
+		int runs = 0;
+
+		long duration = 0;
+
+		long elements = 0;
+
+		long heapBefore = -1;
+
+		long heapAfter = -1;
+
+		/** Start time of the current run, -1 if the phase is not running. */
+		long start = -1;
+
+		ConversionPhaseEvent event;
+	}
+
+	private final Map<Phase, Record> records = new EnumMap<>(Phase.class);
+
+	/**
+	 * Start a phase. 
+	 * @param phase the phase
+	 */
+	public void start(Phase phase) {
+		var r = records.computeIfAbsent(phase, k -> new Record());
+		var heap = usedHeap();
+		if (r.heapBefore < 0) {
+			r.heapBefore = heap;
+		}
+		r.event = new ConversionPhaseEvent();
+		r.event.phase = phase.getLabel();
+		r.event.heapBefore = heap;
+		r.event.begin();
+		r.start = System.nanoTime();
+	}
+
+	/**
+	 * End a phase. 
+	 * @param phase the phase
+	 * @param elements the number of elements processed in this phase
+	 */
+	public void end(Phase phase, long elements) {
+		var r = records.get(phase);
+		if (r == null || r.start < 0) {
+			throw new IllegalStateException("phase " + phase.getLabel() + " has not been started");
+		}
+		r.duration += System.nanoTime() - r.start;
+		r.start = -1;
+		r.runs++;
+		r.elements += elements;
+		r.heapAfter = usedHeap();
+
+		r.event.end();
+		if (r.event.shouldCommit()) {
+			r.event.elements = elements;
+			r.event.heapAfter = r.heapAfter;
+			r.event.commit();
+		}
+		r.event = null;
+	}
+
+	/**
+	 * Get the total duration of a phase.
+	 * @param phase the phase
+	 * @return the duration in nanoseconds, 0 if the phase did not run
+	 */
+	public long getDuration(Phase phase) {
+		var r = records.get(phase);
+		return r == null ? 0 : r.duration;
+	}
+
+	/**
+	 * Get the number of elements processed in a phase.
+	 * @param phase the phase
+	 * @return the element count, 0 if the phase did not run
+	 */
+	public long getElements(Phase phase) {
+		var r = records.get(phase);
+		return r == null ? 0 : r.elements;
+	}
+
+	/**
+	 * Create a JSON summary of the recorded phases in the order in which they are performed.
+	 * Durations are in milliseconds, heap sizes in bytes.
+	 * @return the summary
+	 */
+	public String toJson() {
+		var text = new StringWriter();
+		try (var json = new JsonWriter(text)) {
+			json.setIndent("  ");
+			long total = 0;
+			json.beginObject();
+			json.name("phases").beginArray();
+			for (var entry : records.entrySet()) {
+				var r = entry.getValue();
+				total += r.duration;
+				json.beginObject();
+				json.name("phase").value(entry.getKey().getLabel());
+				json.name("runs").value(r.runs);
+				json.name("durationMs").jsonValue(milliseconds(r.duration));
+				json.name("elements").value(r.elements);
+				json.name("heapBefore").value(r.heapBefore);
+				json.name("heapAfter").value(r.heapAfter);
+				json.endObject();
+			}
+			json.endArray();
+			json.name("totalMs").jsonValue(milliseconds(total));
+			json.endObject();
+		} catch (IOException e) {
+			// a string writer does not throw
+			throw new UncheckedIOException(e);
+		}
+		return text.toString();
+	}
+
+	private static String milliseconds(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	private static long usedHeap() {
+		var rt = Runtime.getRuntime();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+}
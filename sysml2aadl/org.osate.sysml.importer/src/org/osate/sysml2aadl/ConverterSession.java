@@ -0,0 +1,183 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+/**
+ * A session for repeated conversions of SysML models to AADL that share a resource set. The 
+ * session is created once with the libraries and the property lookup context. Each conversion 
+ * uses a new converter, so that the tables of created resources and references are not carried
+ * over from one conversion to the next. The intermediate resources of a conversion are removed
+ * when it finishes, so conversions of models with the same package names do not interfere. The
+ * AADL resources returned by the conversions stay in the resource set until the session is reset.
+ * 
+ * The session can be used from several threads. Conversions change the resource set, so they 
+ * synchronize on it and run one after the other. Code that reads SysML files into the resource 
+ * set while the session is in use must synchronize on the resource set as well.
+ */
+public class ConverterSession {
+
+	private final ResourceSet resourceSet;
+
+	/** Converter holding the state shared by all conversions. */
+	private final SysML2AADLConverter template;
+
+	/** The AADL resources created by conversions since the last reset. */
+	private final List<Resource> created = new ArrayList<>();
+
+	public ConverterSession(ResourceSet rs, Set<Resource> aadlLibraryResources, EObject propertyLookupContext) {
+		resourceSet = rs;
+		synchronized (rs) {
+			template = new SysML2AADLConverter(rs, aadlLibraryResources, propertyLookupContext);
+		}
+	}
+
+	/**
+	 * Create a converter for one conversion. The converter can be configured, e.g., with a package
+	 * filter, before it is passed to {@link #convert(SysML2AADLConverter, Collection)}.
+	 * @param monitor the progress monitor
+	 * @param metrics the metrics, null if no metrics are collected
+	 * @return the converter
+	 */
+	public SysML2AADLConverter createConverter(IProgressMonitor monitor, ConversionMetrics metrics) {
+		return new SysML2AADLConverter(template, monitor, metrics);
+	}
+
+	/**
+	 * Convert SysML resources to AADL with a new converter.
+	 * @param sysmlResources the resources to convert
+	 * @return the generated AADL resources
+	 */
+	public List<Resource> convert(Collection<Resource> sysmlResources) {
+		return convert(createConverter(new NullProgressMonitor(), null), sysmlResources);
+	}
+
+	/**
+	 * Convert SysML resources to AADL. The references of the generated AADL resources are
+	 * changed to refer to each other, and the intermediate resources are removed from the
+	 * resource set.
+	 * @param converter a converter created by this session, it must not be used for another conversion
+	 * @param sysmlResources the resources to convert
+	 * @return the generated AADL resources
+	 */
+	public List<Resource> convert(SysML2AADLConverter converter, Collection<Resource> sysmlResources) {
+		synchronized (resourceSet) {
+			try {
+				var aadlResources = converter.convert(sysmlResources);
+				created.addAll(aadlResources);
+				retarget(converter.getCreatedResources(), aadlResources);
+				return aadlResources;
+			} finally {
+				var intermediate = converter.getCreatedResources();
+				for (var r : intermediate) {
+					r.unload();
+				}
+				resourceSet.getResources().removeAll(intermediate);
+			}
+		}
+	}
+
+	/**
+	 * Change references from the AADL resources to elements in the intermediate resources to
+	 * refer to the copies of these elements in the AADL resources.
+	 * @param intermediate the intermediate resources
+	 * @param aadlResources the AADL resources copied from the intermediate resources
+	 */
+	private static void retarget(List<Resource> intermediate, List<Resource> aadlResources) {
+		var byURI = new HashMap<URI, Resource>();
+		aadlResources.forEach(r -> byURI.put(r.getURI(), r));
+		var copies = new HashMap<EObject, EObject>();
+		for (var r : intermediate) {
+			var copy = byURI.get(r.getURI().trimFileExtension().appendFileExtension("aadl"));
+			if (copy == null || r.getContents().isEmpty()) {
+				continue;
+			}
+			// the copy has the same structure as the original
+			var original = r.getContents().get(0);
+			var copied = copy.getContents().get(0);
+			copies.put(original, copied);
+			var j = copied.eAllContents();
+			for (var i = original.eAllContents(); i.hasNext() && j.hasNext();) {
+				copies.put(i.next(), j.next());
+			}
+		}
+		for (var r : aadlResources) {
+			for (var iter = r.getAllContents(); iter.hasNext();) {
+				retarget(iter.next(), copies);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void retarget(EObject eo, Map<EObject, EObject> copies) {
+		for (var ref : eo.eClass().getEAllReferences()) {
+			if (ref.isContainment() || ref.isContainer() || ref.isDerived() || !ref.isChangeable()
+					|| !eo.eIsSet(ref)) {
+				continue;
+			}
+			if (ref.isMany()) {
+				var values = (EList<EObject>) eo.eGet(ref, false);
+				for (int i = 0; i < values.size(); i++) {
+					var copy = copies.get(values.get(i));
+					if (copy != null) {
+						values.set(i, copy);
+					}
+				}
+			} else {
+				var copy = copies.get(eo.eGet(ref, false));
+				if (copy != null) {
+					eo.eSet(ref, copy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unload the AADL resources created by the conversions since the last reset and remove them
+	 * from the resource set. The AADL resources returned by these conversions must not be used afterwards.
+	 */
+	public void reset() {
+		synchronized (resourceSet) {
+			for (var r : created) {
+				r.unload();
+			}
+			resourceSet.getResources().removeAll(created);
+			created.clear();
+		}
+	}
+
+}
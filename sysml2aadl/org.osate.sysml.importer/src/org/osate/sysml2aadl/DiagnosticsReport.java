@@ -0,0 +1,146 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.omg.sysml.lang.sysml.Element;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Diagnostics that collect reports for a machine readable summary of a conversion.
+ * The report keeps the SysML elements and reads their IDs and names only when it is written.
+ */
+public class DiagnosticsReport implements ConversionDiagnostics {
+
+	private static class Entry {
+
+		final Kind kind;
+
+		final String message;
+
+		final Element element;
+
+		Entry(Kind kind, String message, Element element) {
+			this.kind = kind;
+			this.message = message;
+			this.element = element;
+		}
+	}
+
+	/** The kinds of diagnostics to collect. */
+	private final Set<Kind> kinds;
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Create a report that collects all kinds of diagnostics.
+	 */
+	public DiagnosticsReport() {
+		this(EnumSet.allOf(Kind.class));
+	}
+
+	/**
+	 * Create a report that collects some kinds of diagnostics.
+	 * @param kinds the kinds to collect
+	 */
+	public DiagnosticsReport(Set<Kind> kinds) {
+		this.kinds = EnumSet.copyOf(kinds);
+	}
+
+	@Override
+	public boolean isEnabled(Kind kind) {
+		return kinds.contains(kind);
+	}
+
+	@Override
+	public synchronized void report(Kind kind, String message, Element element) {
+		entries.add(new Entry(kind, message, element));
+	}
+
+	/**
+	 * Get the number of collected diagnostics of a kind.
+	 * @param kind the kind of diagnostic
+	 * @return the count
+	 */
+	public synchronized int getCount(Kind kind) {
+		var count = 0;
+		for (var e : entries) {
+			if (e.kind == kind) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Write the report as JSON. The report contains the number of diagnostics per kind and
+	 * an entry with kind, message, element ID, and qualified name for each diagnostic.
+	 * @param writer the writer
+	 * @throws IOException
+	 */
+	public synchronized void writeJson(Writer writer) throws IOException {
+		var counts = new EnumMap<Kind, Integer>(Kind.class);
+		for (var kind : kinds) {
+			counts.put(kind, 0);
+		}
+		for (var e : entries) {
+			counts.merge(e.kind, 1, Integer::sum);
+		}
+
+		var json = new JsonWriter(writer);
+		json.setIndent("  ");
+		json.beginObject();
+		json.name("counts").beginObject();
+		for (var count : counts.entrySet()) {
+			json.name(name(count.getKey())).value(count.getValue());
+		}
+		json.endObject();
+		json.name("diagnostics").beginArray();
+		for (var e : entries) {
+			json.beginObject();
+			json.name("kind").value(name(e.kind));
+			json.name("message").value(e.message);
+			json.name("elementId").value(e.element.getElementId());
+			json.name("qualifiedName").value(e.element.getQualifiedName());
+			json.endObject();
+		}
+		json.endArray();
+		json.endObject();
+		json.flush();
+		writer.write('\n');
+		writer.flush();
+	}
+
+	private static String name(Kind kind) {
+		return kind.name().toLowerCase();
+	}
+
+}
@@ -0,0 +1,327 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.omg.sysml.expressions.util.EvaluationUtil;
+import org.omg.sysml.lang.sysml.AssociationStructure;
+import org.omg.sysml.lang.sysml.Classifier;
+import org.omg.sysml.lang.sysml.ConnectionUsage;
+import org.omg.sysml.lang.sysml.Connector;
+import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Expression;
+import org.omg.sysml.lang.sysml.Feature;
+import org.omg.sysml.lang.sysml.FeatureChaining;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Subclassification;
+import org.omg.sysml.lang.sysml.PartDefinition;
+import org.omg.sysml.lang.sysml.PartUsage;
+import org.omg.sysml.lang.sysml.PortDefinition;
+import org.omg.sysml.lang.sysml.PortUsage;
+import org.omg.sysml.lang.sysml.Type;
+import org.omg.sysml.lang.sysml.Usage;
+import org.omg.sysml.util.FeatureUtil;
+
+/**
+ * Read-only view of a SysML model that is used during a conversion to AADL.
+ * 
+ * The pilot implementation recomputes derived features such as owned members or the qualified
+ * name from the owned relationships of an element each time they are read. The snapshot computes 
+ * each value once per element and keeps it in an array. The model must not be modified while the
+ * snapshot is in use.
+ * 
+ * A snapshot is thread safe and can be shared by the workers of a parallel conversion. The
+ * derived features of the pilot implementation are not: they are computed on demand and may
+ * add implicit elements and adapters to the model. Therefore all values are derived while
+ * holding the lock of the snapshot, only reading cached values does not lock. Derived features
+ * that are not cached must be read via {@link #read(Supplier)}.
+ */
+public class ModelSnapshot {
+
+	private static final Element[] NO_ELEMENTS = {};
+
+	private static final Feature[] NO_FEATURES = {};
+
+	private static final Classifier[] NO_CLASSIFIERS = {};
+
+	private static final PartDefinition[] NO_PART_DEFINITIONS = {};
+
+	private static final PortDefinition[] NO_PORT_DEFINITIONS = {};
+
+	private static final AssociationStructure[] NO_ASSOCIATIONS = {};
+
+	/** Marker for elements without qualified name, the map cannot store null. */
+	private static final String NO_NAME = new String();
+
+	/** Marker for features without value expression, the map cannot store null. */
+	private static final Expression[] NO_EXPRESSION = {};
+
+	private final Map<Element, String> qualifiedNames = new ConcurrentHashMap<>();
+
+	private final Map<Element, String> names = new ConcurrentHashMap<>();
+
+	private final Map<Type, Feature[]> features = new ConcurrentHashMap<>();
+
+	private final Map<Classifier, Classifier[]> superclassifiers = new ConcurrentHashMap<>();
+
+	private final Map<Feature, Expression[]> valueExpressions = new ConcurrentHashMap<>();
+
+	private final Map<Namespace, Element[]> ownedMembers = new ConcurrentHashMap<>();
+
+	private final Map<Type, Feature[]> ownedFeatures = new ConcurrentHashMap<>();
+
+	private final Map<Usage, Classifier[]> definitions = new ConcurrentHashMap<>();
+
+	private final Map<PartUsage, PartDefinition[]> partDefinitions = new ConcurrentHashMap<>();
+
+	private final Map<PortUsage, PortDefinition[]> portDefinitions = new ConcurrentHashMap<>();
+
+	private final Map<ConnectionUsage, AssociationStructure[]> connectionDefinitions = new ConcurrentHashMap<>();
+
+	private final Map<Feature, Feature[]> chainingFeatures = new ConcurrentHashMap<>();
+
+	private final Map<Connector, Feature[]> sourceFeatures = new ConcurrentHashMap<>();
+
+	private final Map<Connector, Feature[]> targetFeatures = new ConcurrentHashMap<>();
+
+	private final Map<Type, Map<String, Boolean>> specializations = new ConcurrentHashMap<>();
+
+	private final Map<Expression, Map<Element, Element>> evaluated = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the qualified name of an element.
+	 * @param e the element
+	 * @return the qualified name, or null if the element does not have one
+	 */
+	public String getQualifiedName(Element e) {
+		var name = cached(qualifiedNames, e, k -> {
+			var qn = k.getQualifiedName();
+			return qn == null ? NO_NAME : qn;
+		});
+		return name == NO_NAME ? null : name;
+	}
+
+	/**
+	 * Get the effective name of an element.
+	 * @param e the element
+	 * @return the name, or null if the element does not have one
+	 */
+	public String getName(Element e) {
+		var name = cached(names, e, k -> {
+			var n = k.getName();
+			return n == null ? NO_NAME : n;
+		});
+		return name == NO_NAME ? null : name;
+	}
+
+	/**
+	 * Get the owned members of a namespace.
+	 * @param ns the namespace
+	 * @return the owned members
+	 */
+	public Element[] getOwnedMember(Namespace ns) {
+		return get(ownedMembers, ns, Namespace::getOwnedMember, NO_ELEMENTS);
+	}
+
+	/**
+	 * Get the owned features of a type.
+	 * @param t the type
+	 * @return the owned features
+	 */
+	public Feature[] getOwnedFeature(Type t) {
+		return get(ownedFeatures, t, Type::getOwnedFeature, NO_FEATURES);
+	}
+
+	/**
+	 * Get all features of a type, including inherited features.
+	 * @param t the type
+	 * @return the features
+	 */
+	public Feature[] getFeature(Type t) {
+		return get(features, t, Type::getFeature, NO_FEATURES);
+	}
+
+	/**
+	 * Get the direct superclassifiers of a classifier from its owned subclassifications.
+	 * @param c the classifier
+	 * @return the superclassifiers
+	 */
+	public Classifier[] getSuperclassifiers(Classifier c) {
+		return cached(superclassifiers, c, k -> k.getOwnedSubclassification().stream()
+				.map(Subclassification::getSuperclassifier).toArray(Classifier[]::new));
+	}
+
+	/**
+	 * Get the value expression of a feature.
+	 * @param f the feature
+	 * @return the value expression, or null if the feature does not have a value
+	 */
+	public Expression getValueExpression(Feature f) {
+		var expr = cached(valueExpressions, f, k -> {
+			var e = FeatureUtil.getValueExpressionFor(k);
+			return e == null ? NO_EXPRESSION : new Expression[] { e };
+		});
+		return expr.length > 0 ? expr[0] : null;
+	}
+
+	/**
+	 * Get the definitions of a usage.
+	 * @param u the usage
+	 * @return the definitions
+	 */
+	public Classifier[] getDefinition(Usage u) {
+		return get(definitions, u, Usage::getDefinition, NO_CLASSIFIERS);
+	}
+
+	/**
+	 * Get the part definitions of a part usage.
+	 * @param p the part usage
+	 * @return the part definitions
+	 */
+	public PartDefinition[] getPartDefinition(PartUsage p) {
+		return get(partDefinitions, p, PartUsage::getPartDefinition, NO_PART_DEFINITIONS);
+	}
+
+	/**
+	 * Get the port definitions of a port usage.
+	 * @param p the port usage
+	 * @return the port definitions
+	 */
+	public PortDefinition[] getPortDefinition(PortUsage p) {
+		return get(portDefinitions, p, PortUsage::getPortDefinition, NO_PORT_DEFINITIONS);
+	}
+
+	/**
+	 * Get the connection definitions of a connection usage.
+	 * @param c the connection usage
+	 * @return the connection definitions
+	 */
+	public AssociationStructure[] getConnectionDefinition(ConnectionUsage c) {
+		return get(connectionDefinitions, c, ConnectionUsage::getConnectionDefinition, NO_ASSOCIATIONS);
+	}
+
+	/**
+	 * Get the source feature of a connector.
+	 * @param c the connector
+	 * @return the source feature, or null if there is none
+	 */
+	public Feature getSourceFeature(Connector c) {
+		var source = cached(sourceFeatures, c, k -> {
+			var f = k.getSourceFeature();
+			return f == null ? NO_FEATURES : new Feature[] { f };
+		});
+		return source.length > 0 ? source[0] : null;
+	}
+
+	/**
+	 * Get the target features of a connector.
+	 * @param c the connector
+	 * @return the target features
+	 */
+	public Feature[] getTargetFeature(Connector c) {
+		return get(targetFeatures, c, Connector::getTargetFeature, NO_FEATURES);
+	}
+
+	/**
+	 * Get the chaining features of a feature, i.e., the features of its owned feature chainings.
+	 * @param f the feature
+	 * @return the chaining features
+	 */
+	public Feature[] getChainingFeature(Feature f) {
+		return cached(chainingFeatures, f, k -> k.getOwnedFeatureChaining().stream()
+				.map(FeatureChaining::getChainingFeature).toArray(Feature[]::new));
+	}
+
+	/**
+	 * Check if a type specializes a library type.
+	 * @param t the type
+	 * @param libraryTypeName the qualified name of the library type
+	 * @return true iff the type specializes the library type
+	 */
+	public boolean specializesFromLibrary(Type t, String libraryTypeName) {
+		return cached(specializations.computeIfAbsent(t, k -> new ConcurrentHashMap<>()), libraryTypeName,
+				t::specializesFromLibrary);
+	}
+
+	/**
+	 * Check if a type is or specializes a library type.
+	 * @param t the type
+	 * @param libraryTypeName the qualified name of the library type
+	 * @return true iff the type is the library type or specializes it
+	 */
+	public boolean isOrSpecializesFromLibrary(Type t, String libraryTypeName) {
+		return libraryTypeName.equals(getQualifiedName(t)) || specializesFromLibrary(t, libraryTypeName);
+	}
+
+	/**
+	 * Evaluate an expression. The result depends on the target, so it is cached by expression
+	 * and target. An expression shared by several features, e.g., an inherited value, is
+	 * evaluated once per target.
+	 * @param expr the expression
+	 * @param target the element for which the expression is evaluated
+	 * @return the first result of the evaluation
+	 */
+	public Element evaluate(Expression expr, Element target) {
+		return cached(evaluated.computeIfAbsent(expr, k -> new ConcurrentHashMap<>()), target,
+				t -> EvaluationUtil.evaluate(expr, t).get(0));
+	}
+
+	/**
+	 * Read derived features that are not cached by the snapshot. The reader runs while holding
+	 * the lock of the snapshot, so it does not compute derived features concurrently with
+	 * other threads. It may call the methods of the snapshot.
+	 * @param <T> the type of the result
+	 * @param reader the function that reads the model
+	 * @return the result of the reader
+	 */
+	public synchronized <T> T read(Supplier<T> reader) {
+		return reader.get();
+	}
+
+	private <K, T> T[] get(Map<K, T[]> cache, K key, Function<K, List<? extends T>> derive, T[] empty) {
+		return cached(cache, key, k -> {
+			var values = derive.apply(k);
+			return values.isEmpty() ? empty : values.toArray(empty);
+		});
+	}
+
+	/**
+	 * Get a cached value or derive it while holding the lock of the snapshot. The lock is
+	 * always taken before the lock of the map entry.
+	 */
+	private <K, V> V cached(Map<K, V> cache, K key, Function<K, V> derive) {
+		var value = cache.get(key);
+		if (value == null) {
+			synchronized (this) {
+				value = cache.computeIfAbsent(key, derive);
+			}
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,348 @@
+/**
+ * SysML API access examples and SysML to AADL translator
+ *
+ * Copyright 2024 Carnegie Mellon University.
+ *
+ * NO WARRANTY. THIS CARNEGIE MELLON UNIVERSITY AND SOFTWARE ENGINEERING INSTITUTE MATERIAL IS
+ * FURNISHED ON AN "AS-IS" BASIS. CARNEGIE MELLON UNIVERSITY MAKES NO WARRANTIES OF ANY KIND,
+ * EITHER EXPRESSED OR IMPLIED, AS TO ANY MATTER INCLUDING, BUT NOT LIMITED TO, WARRANTY OF FITNESS
+ * FOR PURPOSE OR MERCHANTABILITY, EXCLUSIVITY, OR RESULTS OBTAINED FROM USE OF THE MATERIAL.
+ * CARNEGIE MELLON UNIVERSITY DOES NOT MAKE ANY WARRANTY OF ANY KIND WITH RESPECT TO FREEDOM FROM
+ * PATENT, TRADEMARK, OR COPYRIGHT INFRINGEMENT.
+ *
+ * Licensed under an Eclipse Public License - v 2.0-style license, please see license.txt or
+ * contact permission@sei.cmu.edu for full terms.
+ *
+ * [DISTRIBUTION STATEMENT A] This material has been approved for public release and unlimited
+ * distribution.  Please see Copyright notice for non-US Government use and distribution.
+ *
+ * This Software includes and/or makes use of Third-Party Software each subject to its own license.
+ *
+ * DM24-0393
+ */
+package org.osate.sysml2aadl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Package;
+
+/**
+ * Persistent dependency graph between SysML packages and the AADL files generated for them.
+ * For each package the graph stores a digest of the package content, the name of the generated
+ * AADL file, and the packages that the generated AADL refers to. The graph is used to find the
+ * packages that must be converted again after a change: the changed packages and all packages
+ * that depend on them directly or indirectly.
+ * 
+ * The graph is stored as a text file with one line per package. The line contains the tab 
+ * separated qualified package name, digest, file name, and names of the packages it depends on.
+ */
+public class PackageDependencyGraph {
+
+	/** Name of the file storing the graph for a conversion of SysML files. */
+	public static final String FILE_NAME = "sysml2aadl.deps";
+
+	private static final String HEADER = "# SysML to AADL package dependencies";
+
+	private static class Node {
+
+		/** Digest of the SysML package content. */
+		String digest;
+
+		/** Name of the generated AADL file relative to the output directory. */
+		String fileName;
+
+		/** Qualified names of the packages the generated AADL refers to. */
+		Set<String> dependencies;
+
+		Node(String digest, String fileName, Set<String> dependencies) {
+			this.digest = digest;
+			this.fileName = fileName;
+			this.dependencies = dependencies;
+		}
+	}
+
+	/** The nodes of the graph by qualified package name. */
+	private Map<String, Node> nodes = new LinkedHashMap<>();
+
+	/**
+	 * Read a dependency graph from a file.
+	 * @param file the file
+	 * @return the graph, an empty graph if the file does not exist
+	 * @throws IOException
+	 */
+	public static PackageDependencyGraph load(Path file) throws IOException {
+		var graph = new PackageDependencyGraph();
+		if (Files.exists(file)) {
+			for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				var fields = line.split("\t");
+				if (fields.length < 3) {
+					throw new IOException("malformed dependency graph entry: " + line);
+				}
+				var dependencies = new LinkedHashSet<String>();
+				for (int i = 3; i < fields.length; i++) {
+					dependencies.add(fields[i]);
+				}
+				graph.nodes.put(fields[0], new Node(fields[1], fields[2], dependencies));
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Write the dependency graph to a file.
+	 * @param file the file
+	 * @throws IOException
+	 */
+	public void save(Path file) throws IOException {
+		try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (var entry : nodes.entrySet()) {
+				var node = entry.getValue();
+				writer.write(entry.getKey());
+				writer.write('\t');
+				writer.write(node.digest);
+				writer.write('\t');
+				writer.write(node.fileName);
+				for (var dep : node.dependencies) {
+					writer.write('\t');
+					writer.write(dep);
+				}
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Update the entry for a package after it has been converted.
+	 * @param name the qualified package name
+	 * @param digest the digest of the package content
+	 * @param fileName the name of the generated AADL file
+	 * @param dependencies the qualified names of the packages the generated AADL refers to
+	 */
+	public void update(String name, String digest, String fileName, Set<String> dependencies) {
+		nodes.put(name, new Node(digest, fileName, new LinkedHashSet<>(dependencies)));
+	}
+
+	/**
+	 * Remove packages that no longer exist from the graph.
+	 * @param names the qualified names of the existing packages
+	 * @return the names of the AADL files generated for the removed packages
+	 */
+	public List<String> retainAll(Set<String> names) {
+		var removed = new ArrayList<String>();
+		for (var iter = nodes.entrySet().iterator(); iter.hasNext();) {
+			var entry = iter.next();
+			if (!names.contains(entry.getKey())) {
+				removed.add(entry.getValue().fileName);
+				iter.remove();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove packages that no longer exist from the graph and delete the AADL files generated
+	 * for them. A file is kept if it is also the file of a remaining package.
+	 * @param names the qualified names of the existing packages
+	 * @param outputDirectory the directory containing the generated AADL files
+	 * @return the names of the deleted files
+	 * @throws IOException
+	 */
+	public List<String> retainAll(Set<String> names, Path outputDirectory) throws IOException {
+		var removed = retainAll(names);
+		var used = new HashSet<String>();
+		for (var node : nodes.values()) {
+			used.add(node.fileName);
+		}
+		var deleted = new ArrayList<String>();
+		for (var fileName : removed) {
+			if (!used.contains(fileName) && Files.deleteIfExists(outputDirectory.resolve(fileName))) {
+				deleted.add(fileName);
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Find the packages that must be converted. A package must be converted if it is new, its
+	 * content has changed, its AADL file is missing, or if it depends on such a package or on a
+	 * package that has been removed.
+	 * @param digests map from qualified package name to digest for all current packages
+	 * @param outputDirectory the directory containing the generated AADL files
+	 * @return the qualified names of the packages to convert
+	 */
+	public Set<String> getDirtyPackages(Map<String, String> digests, Path outputDirectory) {
+		var dirty = new LinkedHashSet<String>();
+		for (var entry : digests.entrySet()) {
+			var node = nodes.get(entry.getKey());
+			if (node == null || !node.digest.equals(entry.getValue())
+					|| !Files.exists(outputDirectory.resolve(node.fileName))) {
+				dirty.add(entry.getKey());
+			}
+		}
+		var changed = new HashSet<>(dirty);
+		for (var name : nodes.keySet()) {
+			if (!digests.containsKey(name)) {
+				changed.add(name);
+			}
+		}
+
+		// add all packages that depend on a changed package
+		for (var name : getDependentPackages(changed)) {
+			if (digests.containsKey(name)) {
+				dirty.add(name);
+			}
+		}
+		return dirty;
+	}
+
+	/**
+	 * Find the packages that depend directly or indirectly on the given packages.
+	 * @param names the qualified names of the packages
+	 * @return the qualified names of the dependent packages
+	 */
+	public Set<String> getDependentPackages(Collection<String> names) {
+		var dependents = new HashMap<String, Set<String>>();
+		nodes.forEach((name, node) -> {
+			for (var dep : node.dependencies) {
+				dependents.computeIfAbsent(dep, k -> new HashSet<>()).add(name);
+			}
+		});
+		var result = new LinkedHashSet<String>();
+		var todo = new ArrayDeque<>(names);
+		while (!todo.isEmpty()) {
+			var users = dependents.get(todo.poll());
+			if (users != null) {
+				for (var user : users) {
+					if (result.add(user)) {
+						todo.add(user);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the digests for all packages in a collection of SysML resources.
+	 * @param sysmlResources the resources
+	 * @return map from qualified package name to digest
+	 */
+	public static Map<String, String> digests(Collection<Resource> sysmlResources) {
+		var digests = new LinkedHashMap<String, String>();
+		for (var r : sysmlResources) {
+			if (!r.getContents().isEmpty() && r.getContents().get(0) instanceof Namespace ns) {
+				for (var m : ns.getOwnedMember()) {
+					if (m instanceof Package p) {
+						addDigests(p, digests);
+					}
+				}
+			}
+		}
+		return digests;
+	}
+
+	private static void addDigests(Package sp, Map<String, String> digests) {
+		digests.put(sp.getQualifiedName(), digest(sp));
+		for (var m : sp.getOwnedMember()) {
+			if (m instanceof Package p) {
+				addDigests(p, digests);
+			}
+		}
+	}
+
+	/**
+	 * Compute a digest of the content of a SysML package. Nested packages are not included
+	 * because they are converted to separate AADL packages. The digest is computed from the
+	 * source text if the package has been parsed, otherwise from the model structure.
+	 * @param sp the package
+	 * @return the digest as hex string
+	 */
+	public static String digest(Package sp) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		update(md, sp.getQualifiedName());
+		for (var rel : sp.getOwnedRelationship()) {
+			if (rel.getOwnedRelatedElement().stream().anyMatch(Package.class::isInstance)) {
+				continue;
+			}
+			var node = NodeModelUtils.findActualNodeFor(rel);
+			if (node != null) {
+				update(md, node.getText());
+			} else {
+				updateStructure(md, rel);
+			}
+		}
+		var sb = new StringBuilder();
+		for (var b : md.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	private static void update(MessageDigest md, String s) {
+		md.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+	}
+
+	/**
+	 * Add the stored features of a model element and its contents to a digest. References to 
+	 * elements outside the containment tree are represented by the element ID.
+	 * @param md the digest
+	 * @param eo the model element
+	 */
+	private static void updateStructure(MessageDigest md, EObject eo) {
+		update(md, eo.eClass().getName());
+		for (var sf : eo.eClass().getEAllStructuralFeatures()) {
+			if (sf.isDerived() || sf.isTransient() || sf.isVolatile() || !eo.eIsSet(sf)) {
+				continue;
+			}
+			update(md, sf.getName());
+			var value = eo.eGet(sf, false);
+			var values = sf.isMany() ? (Collection<?>) value : List.of(value);
+			for (var v : values) {
+				if (sf instanceof EAttribute) {
+					update(md, String.valueOf(v));
+				} else if (((EReference) sf).isContainment()) {
+					updateStructure(md, (EObject) v);
+				} else if (v instanceof Element e && !e.eIsProxy()) {
+					update(md, e.getElementId());
+				} else {
+					update(md, EcoreUtil.getURI((EObject) v).toString());
+				}
+			}
+		}
+	}
+
+}
@@ -23,13 +23,23 @@
 package org.osate.sysml2aadl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.log4j.Logger;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -44,7 +54,6 @@ import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.emf.ecore.xmi.impl.XMLResourceFactoryImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMLResourceImpl;
 import org.eclipse.xtext.EcoreUtil2;
-import org.omg.sysml.expressions.util.EvaluationUtil;
 import org.omg.sysml.lang.sysml.AttributeUsage;
 import org.omg.sysml.lang.sysml.BindingConnectorAsUsage;
 import org.omg.sysml.lang.sysml.Classifier;
@@ -52,6 +61,7 @@ import org.omg.sysml.lang.sysml.ConnectionDefinition;
 import org.omg.sysml.lang.sysml.ConnectionUsage;
 import org.omg.sysml.lang.sysml.ConnectorAsUsage;
 import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Expression;
 import org.omg.sysml.lang.sysml.FeatureDirectionKind;
 import org.omg.sysml.lang.sysml.FeatureReferenceExpression;
 import org.omg.sysml.lang.sysml.ItemUsage;
@@ -63,9 +73,8 @@ import org.omg.sysml.lang.sysml.PartDefinition;
 import org.omg.sysml.lang.sysml.PartUsage;
 import org.omg.sysml.lang.sysml.PortDefinition;
 import org.omg.sysml.lang.sysml.PortUsage;
-import org.omg.sysml.lang.sysml.Relationship;
+import org.omg.sysml.lang.sysml.Redefinition;
 import org.omg.sysml.lang.sysml.Type;
-import org.omg.sysml.util.FeatureUtil;
 import org.osate.aadl2.Aadl2Factory;
 import org.osate.aadl2.Aadl2Package;
 import org.osate.aadl2.AadlPackage;
@@ -98,7 +107,10 @@ import org.osate.aadl2.Subcomponent;
 import org.osate.aadl2.UnitLiteral;
 import org.osate.aadl2.UnitsType;
 import org.osate.aadl2.modelsupport.scoping.Aadl2GlobalScopeUtil;
+import org.osate.sysml.util.LibraryIndex;
 import org.osate.sysml.util.ProxyUtil;
+import org.osate.sysml2aadl.ConversionDiagnostics.Kind;
+import org.osate.sysml2aadl.ConversionMetrics.Phase;
 
 /**
  * This class contains the functionality to convert EMF resources for SysML files
@@ -116,31 +128,197 @@ public class SysML2AADLConverter {
 	/** Resources for the AADL library files. */
 	private Set<Resource> aadlLibraryResources;
 
-	/** Table to look up AADL library elements by ID. */
-	private Map<String, Element> aadlLibraryElements = new HashMap<>();
+	/** Index to look up AADL library elements by ID, shared by all users of the resource set. */
+	private LibraryIndex aadlLibraryElements;
 
 	/** List of all created resources for AADL packages. */
 	private List<Resource> created = new ArrayList<>();
 
 	/** Store the resource for the AADL model created for a SysML package. */
-	private Map<Package, XMLResource> packageToResourceMap = new HashMap<>();
+	private Map<Package, XMLResource> packageToResourceMap = new LinkedHashMap<>();
 
 	/** Map to track references across AADL packages, used to generate with statements. */
 	private Map<XMLResource, Set<XMLResource>> usedResources = new HashMap<>();
 
 	private EObject propertyLookupContext = null;
 
+	/** Cache for property lookups, shared with the workers of a parallel conversion. */
+	private Map<String, Property> propertyCache = new HashMap<>();
+
+	/** Number of threads used to convert packages, 1 for sequential conversion. */
+	private int parallelism = 1;
+
+	/**
+	 * Resources for generated AADL packages shared by the workers of a parallel conversion.
+	 * Null if this is not a worker.
+	 */
+	private Map<Package, XMLResource> sharedResources = null;
+
+	/**
+	 * The resources used by a worker of a parallel conversion in the order of first use, 
+	 * interleaved with the nested packages that are converted by other workers.
+	 */
+	private List<Object> trace = null;
+
+	/** Select the SysML packages to convert, null to convert all packages. */
+	private Predicate<Package> packageFilter = null;
+
+	/** The SysML packages converted to AADL. */
+	private Set<Package> converted = new HashSet<>();
+
+	/** Receives diagnostics about converted and skipped elements. */
+	private ConversionDiagnostics diagnostics = ConversionDiagnostics.logging(logger);
+
+	/** Memoized derived features of the SysML model, renewed for each conversion. */
+	private ModelSnapshot snapshot = new ModelSnapshot();
+
+	/** The SysML resources of the last conversion. */
+	private List<Resource> inputResources = List.of();
+
+	/** Metrics for the conversion phases, null if no metrics are collected. */
+	private ConversionMetrics metrics = null;
+
 	public SysML2AADLConverter(ResourceSet rs, Set<Resource> aadlLibraryResources, EObject propertyLookupContext) {
 		this(rs, aadlLibraryResources, propertyLookupContext, new NullProgressMonitor());
 	}
 
 	public SysML2AADLConverter(ResourceSet rs, Set<Resource> aadlLibraryResources, EObject propertyLookupContext,
 			IProgressMonitor monitor) {
+		this(rs, aadlLibraryResources, propertyLookupContext, monitor, null);
+	}
+
+	public SysML2AADLConverter(ResourceSet rs, Set<Resource> aadlLibraryResources, EObject propertyLookupContext,
+			IProgressMonitor monitor, ConversionMetrics metrics) {
 		this.monitor = monitor;
 		this.aadlLibraryResources = aadlLibraryResources;
 		this.propertyLookupContext = propertyLookupContext;
+		this.metrics = metrics;
 		setResourceSet(rs);
-		initLibraryElements();
+		startPhase(Phase.LIBRARY_INDEX);
+		aadlLibraryElements = LibraryIndex.get(rs, aadlLibraryResources);
+		endPhase(Phase.LIBRARY_INDEX, aadlLibraryElements.size());
+	}
+
+	/**
+	 * Create a converter for one conversion in a session. The converter shares the resource set, the
+	 * libraries and the property lookup with the session's template converter. All other state is 
+	 * new, so the conversion does not depend on earlier conversions in the session.
+	 * @param template the converter created by the session
+	 * @param monitor the progress monitor
+	 * @param metrics the metrics, null if no metrics are collected
+	 */
+	SysML2AADLConverter(SysML2AADLConverter template, IProgressMonitor monitor, ConversionMetrics metrics) {
+		this.monitor = monitor;
+		this.metrics = metrics;
+		this.resourceSet = template.resourceSet;
+		this.aadlLibraryResources = template.aadlLibraryResources;
+		this.aadlLibraryElements = template.aadlLibraryElements;
+		this.propertyLookupContext = template.propertyLookupContext;
+		this.propertyCache = template.propertyCache;
+	}
+
+	/**
+	 * Get the intermediate resources created by the last conversion.
+	 * @return the resources
+	 */
+	List<Resource> getCreatedResources() {
+		return created;
+	}
+
+	/**
+	 * Create a worker for a parallel conversion. The worker shares the libraries and property lookup
+	 * with its parent but keeps its own table of referenced resources. 
+	 * @param parent the converter that runs the parallel conversion
+	 * @param sharedResources the resources for generated AADL packages
+	 */
+	private SysML2AADLConverter(SysML2AADLConverter parent, Map<Package, XMLResource> sharedResources) {
+		this.monitor = new NullProgressMonitor();
+		this.resourceSet = parent.resourceSet;
+		this.aadlLibraryResources = parent.aadlLibraryResources;
+		this.aadlLibraryElements = parent.aadlLibraryElements;
+		this.propertyLookupContext = parent.propertyLookupContext;
+		this.propertyCache = parent.propertyCache;
+		this.packageFilter = parent.packageFilter;
+		this.diagnostics = parent.diagnostics;
+		this.snapshot = parent.snapshot;
+		this.sharedResources = sharedResources;
+		this.trace = new ArrayList<>();
+	}
+
+	/**
+	 * Set the number of threads used to convert packages. With more than one thread each package
+	 * is converted by a separate task. The result is the same as for a sequential conversion.
+	 * @param parallelism the number of threads, 1 for sequential conversion
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Select the SysML packages to convert. Packages that are not selected are converted only if
+	 * the AADL generated for a selected package refers to them. This allows to regenerate only
+	 * the AADL packages that are affected by a change in the SysML model.
+	 * @param packageFilter the filter, null to convert all packages
+	 */
+	public void setPackageFilter(Predicate<Package> packageFilter) {
+		this.packageFilter = packageFilter;
+	}
+
+	/**
+	 * Set the receiver for diagnostics about converted and skipped elements. By default the
+	 * diagnostics are logged.
+	 * @param diagnostics the diagnostics, {@link ConversionDiagnostics#NONE} to ignore them
+	 */
+	public void setDiagnostics(ConversionDiagnostics diagnostics) {
+		this.diagnostics = diagnostics;
+	}
+
+	/**
+	 * Get the dependencies between the converted SysML packages. A package depends on another
+	 * package if the AADL generated for it refers to the AADL generated for the other package,
+	 * or if an element in the package refers to an element in the other package. References in
+	 * the SysML model are included because they can change the generated AADL without creating
+	 * an AADL reference, e.g., in attribute values.
+	 * @return map from qualified package name to the qualified names of the packages it depends on
+	 */
+	public Map<String, Set<String>> getPackageDependencies() {
+		var resourceToPackage = new HashMap<XMLResource, Package>();
+		packageToResourceMap.forEach((p, r) -> resourceToPackage.put(r, p));
+
+		var packages = new LinkedHashMap<String, Package>();
+		for (var r : inputResources) {
+			var ns = (Namespace) r.getContents().get(0);
+			for (var m : ns.getOwnedMember()) {
+				if (m instanceof Package p) {
+					collectPackages(p, packages);
+				}
+			}
+		}
+		var sysmlDependencies = findDependencies(packages);
+
+		var dependencies = new LinkedHashMap<String, Set<String>>();
+		for (var p : packageToResourceMap.keySet()) {
+			if (converted.contains(p)) {
+				var deps = new LinkedHashSet<String>();
+				var used = usedResources.get(packageToResourceMap.get(p));
+				if (used != null) {
+					for (var r : used) {
+						var dep = resourceToPackage.get(r);
+						if (dep != null) {
+							deps.add(dep.getQualifiedName());
+						}
+					}
+				}
+				var sysmlDeps = sysmlDependencies.get(p.getElementId());
+				if (sysmlDeps != null) {
+					for (var id : sysmlDeps) {
+						deps.add(packages.get(id).getQualifiedName());
+					}
+				}
+				dependencies.put(p.getQualifiedName(), deps);
+			}
+		}
+		return dependencies;
 	}
 
 	/**
@@ -173,62 +351,55 @@ public class SysML2AADLConverter {
 		});
 	}
 
-	/**
-	 * Put named AADL library elements in a lookup table
-	 */
-	private void initLibraryElements() {
-		for (var r : aadlLibraryResources) {
-			for (var iter = EcoreUtil.<Element>getAllContents(r, true); iter.hasNext();) {
-				var e = iter.next();
-				if (!(e instanceof Relationship)) {
-					if (e.getElementId() != null && e.getDeclaredName() != null) {
-						aadlLibraryElements.putIfAbsent(e.getElementId(), e);
-					}
-				}
-			}
-		}
-	}
-
 	/**
 	 * Convert a collection of SysML resources to AADL
 	 * @param sysmlResources the resources to convert
 	 * @return
 	 */
 	public List<Resource> convert(Collection<Resource> sysmlResources) {
-		var xmlResources = new ArrayList<Resource>();
 		var todo = sysmlResources.size();
+		inputResources = List.copyOf(sysmlResources);
 
 		monitor.beginTask("Conversion to AADL", todo);
+		snapshot = new ModelSnapshot();
 		try {
-			for (var r : sysmlResources) {
-				monitor.subTask(r.getURI().toFileString());
-				xmlResources.addAll(convert(r));
-				monitor.worked(1);
+			startPhase(Phase.PACKAGE_CONVERSION);
+			if (parallelism > 1) {
+				convertParallel(sysmlResources);
+			} else {
+				for (var r : sysmlResources) {
+					monitor.subTask(r.getURI().toFileString());
+					convert(r);
+					monitor.worked(1);
+				}
 			}
+			if (packageFilter != null) {
+				convertDependencies(sysmlResources);
+			}
+			endPhase(Phase.PACKAGE_CONVERSION, converted.size());
+			var xmlResources = new ArrayList<Resource>(created);
 
+			startPhase(Phase.PROXY_RESOLUTION);
 			for (var r : xmlResources) {
 				EcoreUtil.resolveAll(r);
 			}
+			endPhase(Phase.PROXY_RESOLUTION, xmlResources.size());
+
+			startPhase(Phase.WITH_STATEMENTS);
+			var withCount = 0;
+			for (var xmlResource : xmlResources) {
+				withCount += addWithStatements(xmlResource);
+			}
+			endPhase(Phase.WITH_STATEMENTS, withCount);
 
+			startPhase(Phase.COPY);
 			var aadlResources = new ArrayList<Resource>();
 			for (var xmlResource : xmlResources) {
-				// add with statement
-				var used = usedResources.get(xmlResource);
-				if (used != null) {
-					var pkg = (AadlPackage) xmlResource.getContents().get(0);
-					for (var res : used) {
-						if (!res.getContents().isEmpty()) {
-							pkg.getOwnedPublicSection().getImportedUnits().add((AadlPackage) res.getContents().get(0));
-						}
-					}
-				}
 				if (!xmlResource.getContents().isEmpty()) {
-					var aadlResource = resourceSet
-							.createResource(xmlResource.getURI().trimFileExtension().appendFileExtension("aadl"));
-					aadlResource.getContents().add(EcoreUtil.copy(xmlResource.getContents().get(0)));
-					aadlResources.add(aadlResource);
+					aadlResources.add(copyToAADL(xmlResource));
 				}
 			}
+			endPhase(Phase.COPY, aadlResources.size());
 			return aadlResources;
 		} catch (Error e) {
 			return Collections.emptyList();
@@ -237,6 +408,394 @@ public class SysML2AADLConverter {
 		}
 	}
 
+	/**
+	 * Convert a collection of SysML resources to AADL and pass each AADL resource to a consumer as
+	 * soon as it is complete. The packages are converted one at a time with dependencies first. 
+	 * An AADL resource is complete when the packages it refers to have been converted. After the 
+	 * consumer returns, the AADL resource is unloaded. The intermediate resource for a package is
+	 * unloaded when all packages referring to it are complete, and a SysML resource is unloaded 
+	 * when all packages in it and all packages referring to them have been converted. That way 
+	 * only the generated AADL for the packages at the dependency frontier is kept in memory.
+	 * 
+	 * All SysML resources must be loaded when the conversion starts, so the memory used for the
+	 * SysML model is not reduced until the first resources are unloaded. The dependencies are 
+	 * found from the references in the SysML model before the conversion.
+	 * The package filter is not applied, all packages are converted.
+	 * 
+	 * @param sysmlResources the resources to convert
+	 * @param consumer the consumer for the AADL resources, e.g., to write them to files
+	 */
+	public void convert(Collection<Resource> sysmlResources, Consumer<Resource> consumer) {
+		convertInDependencyOrder(sysmlResources, consumer, true);
+	}
+
+	/**
+	 * Convert a collection of SysML resources to AADL and publish each AADL resource as soon as
+	 * the packages it refers to have been converted. The conversion runs on the calling thread and
+	 * the subscribers receive the resources on the publisher's executor, so that the resources can
+	 * be written while the remaining packages are converted. The resources are not modified after 
+	 * they have been published. The publisher is closed when the conversion is done.
+	 * 
+	 * The packages are converted one at a time with dependencies first, see 
+	 * {@link #convert(Collection, Consumer)}, but no resources are unloaded. The package filter
+	 * is not applied.
+	 * 
+	 * @param sysmlResources the resources to convert
+	 * @param publisher the publisher for the AADL resources
+	 * @return the AADL resources
+	 */
+	public List<Resource> convert(Collection<Resource> sysmlResources, SubmissionPublisher<Resource> publisher) {
+		var aadlResources = new ArrayList<Resource>();
+		try {
+			convertInDependencyOrder(sysmlResources, r -> {
+				aadlResources.add(r);
+				publisher.submit(r);
+			}, false);
+			publisher.close();
+			return aadlResources;
+		} catch (Error e) {
+			publisher.closeExceptionally(e);
+			return Collections.emptyList();
+		} catch (RuntimeException e) {
+			publisher.closeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Convert SysML packages one at a time with dependencies first.
+	 * @param sysmlResources the resources to convert
+	 * @param consumer the consumer for complete AADL resources
+	 * @param release if true, unload resources that are no longer needed
+	 */
+	private void convertInDependencyOrder(Collection<Resource> sysmlResources, Consumer<Resource> consumer,
+			boolean release) {
+		// the packages are tracked by element ID so that unloaded SysML models can be garbage collected
+		var packages = new LinkedHashMap<String, Package>();
+		for (var r : sysmlResources) {
+			var ns = (Namespace) r.getContents().get(0);
+			for (var m : ns.getOwnedMember()) {
+				if (m instanceof Package p) {
+					collectPackages(p, packages);
+				}
+			}
+		}
+		var dependencies = findDependencies(packages);
+		var dependents = new HashMap<String, Set<String>>();
+		dependencies.forEach((id, deps) -> deps.forEach(d -> dependents.computeIfAbsent(d, k -> new HashSet<>()).add(id)));
+		var order = sortByDependencies(packages.keySet(), dependencies);
+
+		// a SysML resource is needed until all packages in it and all packages referring to them are converted
+		var resourceUsers = new HashMap<Resource, Set<String>>();
+		// the SysML resources each package is a user of
+		var usedByPackage = new HashMap<String, Set<Resource>>();
+		// the packages in each SysML resource
+		var resourcePackages = new HashMap<Resource, List<Package>>();
+		packages.forEach((id, p) -> {
+			var r = p.eResource();
+			var users = resourceUsers.computeIfAbsent(r, k -> new HashSet<>());
+			users.add(id);
+			users.addAll(dependents.getOrDefault(id, Set.of()));
+			for (var user : users) {
+				usedByPackage.computeIfAbsent(user, k -> new HashSet<>()).add(r);
+			}
+			resourcePackages.computeIfAbsent(r, k -> new ArrayList<>()).add(p);
+		});
+		// an intermediate resource is needed until all packages referring to it are complete
+		var pendingUsers = new HashMap<String, Set<String>>();
+		dependents.forEach((id, users) -> pendingUsers.put(id, new HashSet<>(users)));
+
+		var xmlResources = new HashMap<String, XMLResource>();
+		var xmlPackages = new HashMap<XMLResource, Package>();
+		var convertedIds = new HashSet<String>();
+		var waiting = new ArrayList<String>();
+		var complete = new HashSet<String>();
+		var deferred = new ArrayList<String>();
+		monitor.beginTask("Conversion to AADL", order.size());
+		snapshot = new ModelSnapshot();
+		try {
+			for (var id : order) {
+				var p = packages.remove(id);
+				monitor.subTask(p.getQualifiedName());
+				startPhase(Phase.PACKAGE_CONVERSION);
+				if (release) {
+					// the memoized features would keep the SysML model alive
+					snapshot = new ModelSnapshot();
+				}
+				convertPackage(p, false);
+				endPhase(Phase.PACKAGE_CONVERSION, 1);
+				var xmlResource = packageToResourceMap.get(p);
+				xmlResources.put(id, xmlResource);
+				xmlPackages.put(xmlResource, p);
+				convertedIds.add(id);
+				monitor.worked(1);
+
+				for (var r : usedByPackage.getOrDefault(id, Set.of())) {
+					var users = resourceUsers.get(r);
+					users.remove(id);
+					if (release && users.isEmpty()) {
+						resourceUsers.remove(r);
+						r.unload();
+						// unloaded packages are not referenced by packages converted later
+						for (var unloaded : resourcePackages.remove(r)) {
+							xmlPackages.remove(packageToResourceMap.remove(unloaded));
+							converted.remove(unloaded);
+						}
+					}
+				}
+
+				// complete all packages whose dependencies have been converted, in conversion order
+				waiting.add(id);
+				for (var iter = waiting.iterator(); iter.hasNext();) {
+					var w = iter.next();
+					if (convertedIds.containsAll(dependencies.get(w))) {
+						iter.remove();
+						if (!complete(xmlResources.get(w), consumer, release, false)) {
+							// a dependency was not found before the conversion, complete the package at the end
+							deferred.add(w);
+							continue;
+						}
+						complete.add(w);
+						if (release) {
+							releaseIfUnused(w, xmlResources, xmlPackages, pendingUsers, complete);
+							for (var d : dependencies.get(w)) {
+								pendingUsers.get(d).remove(w);
+								releaseIfUnused(d, xmlResources, xmlPackages, pendingUsers, complete);
+							}
+						}
+					}
+				}
+			}
+			for (var w : deferred) {
+				complete(xmlResources.get(w), consumer, release, true);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Collect a package and its nested packages by element ID.
+	 * @param sp the package
+	 * @param packages the map to add the packages to
+	 */
+	private void collectPackages(Package sp, Map<String, Package> packages) {
+		packages.put(sp.getElementId(), sp);
+		for (var m : sp.getOwnedMember()) {
+			if (m instanceof Package p) {
+				collectPackages(p, packages);
+			}
+		}
+	}
+
+	/**
+	 * Find the packages that each package refers to. The references of all elements in a package,
+	 * except for the elements in nested packages, are followed. Only references to the given
+	 * packages are included.
+	 * @param packages the packages by element ID
+	 * @return map from package ID to the IDs of the packages it refers to
+	 */
+	private Map<String, Set<String>> findDependencies(Map<String, Package> packages) {
+		var dependencies = new HashMap<String, Set<String>>();
+		packages.forEach((id, p) -> {
+			var deps = new LinkedHashSet<String>();
+			for (var iter = p.eAllContents(); iter.hasNext();) {
+				var eo = iter.next();
+				if (eo instanceof Package) {
+					iter.prune();
+					continue;
+				}
+				for (var ref : eo.eClass().getEAllReferences()) {
+					if (ref.isContainment() || ref.isContainer() || ref.isDerived() || ref.isTransient()
+							|| !eo.eIsSet(ref)) {
+						continue;
+					}
+					var value = eo.eGet(ref);
+					var targets = ref.isMany() ? (Collection<?>) value : List.of(value);
+					for (var target : targets) {
+						var dep = getOwningPackage((EObject) target, packages);
+						if (dep != null && !dep.equals(id)) {
+							deps.add(dep);
+						}
+					}
+				}
+			}
+			dependencies.put(id, deps);
+		});
+		return dependencies;
+	}
+
+	/**
+	 * Find the innermost of the given packages that contains an element.
+	 * @param eo the element
+	 * @param packages the packages by element ID
+	 * @return the ID of the package, or null if the element is not in one of the packages
+	 */
+	private static String getOwningPackage(EObject eo, Map<String, Package> packages) {
+		for (var c = eo; c != null; c = c.eContainer()) {
+			if (c instanceof Package p && packages.get(p.getElementId()) == p) {
+				return p.getElementId();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sort packages such that packages come after the packages they refer to. Packages in a
+	 * dependency cycle are kept in the given order.
+	 * @param ids the package IDs in input order
+	 * @param dependencies the packages each package refers to
+	 * @return the sorted package IDs
+	 */
+	private static List<String> sortByDependencies(Collection<String> ids, Map<String, Set<String>> dependencies) {
+		var sorted = new LinkedHashSet<String>();
+		var visiting = new HashSet<String>();
+		for (var id : ids) {
+			visit(id, dependencies, visiting, sorted);
+		}
+		return new ArrayList<>(sorted);
+	}
+
+	private static void visit(String id, Map<String, Set<String>> dependencies, Set<String> visiting,
+			Set<String> sorted) {
+		if (sorted.contains(id) || !visiting.add(id)) {
+			return;
+		}
+		for (var d : dependencies.get(id)) {
+			visit(d, dependencies, visiting, sorted);
+		}
+		visiting.remove(id);
+		sorted.add(id);
+	}
+
+	/**
+	 * Resolve the references in the intermediate resource for a package and pass the AADL resource
+	 * to the consumer. A reference cannot be resolved if the package refers to a package that is 
+	 * not converted yet, i.e., the dependencies found before the conversion are incomplete. Such
+	 * a resource is only passed to the consumer at the end of the conversion.
+	 * @param xmlResource the intermediate resource
+	 * @param consumer the consumer
+	 * @param release if true, unload the AADL resource when the consumer returns
+	 * @param last if true, the conversion is finished and the resource is passed to the consumer
+	 * even if a reference cannot be resolved
+	 * @return true iff the AADL resource has been passed to the consumer
+	 */
+	private boolean complete(XMLResource xmlResource, Consumer<Resource> consumer, boolean release, boolean last) {
+		startPhase(Phase.PROXY_RESOLUTION);
+		EcoreUtil.resolveAll(xmlResource);
+		var unresolved = EcoreUtil.UnresolvedProxyCrossReferencer.find(xmlResource);
+		endPhase(Phase.PROXY_RESOLUTION, 1);
+		if (!unresolved.isEmpty()) {
+			if (!last) {
+				return false;
+			}
+			logger.error("unresolved references in " + xmlResource.getURI().trimFileExtension());
+		}
+		startPhase(Phase.WITH_STATEMENTS);
+		endPhase(Phase.WITH_STATEMENTS, addWithStatements(xmlResource));
+		if (!xmlResource.getContents().isEmpty()) {
+			startPhase(Phase.COPY);
+			var aadlResource = copyToAADL(xmlResource);
+			endPhase(Phase.COPY, 1);
+			consumer.accept(aadlResource);
+			if (release) {
+				aadlResource.unload();
+				resourceSet.getResources().remove(aadlResource);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Unload the intermediate resource for a package if the package is complete and all packages
+	 * that refer to it are complete.
+	 * @param id the package ID
+	 * @param xmlResources the intermediate resources by package ID
+	 * @param xmlPackages the packages by intermediate resource, unless their SysML resource is unloaded
+	 * @param pendingUsers the IDs of the packages referring to each package that are not complete
+	 * @param complete the IDs of the complete packages
+	 */
+	private void releaseIfUnused(String id, Map<String, XMLResource> xmlResources,
+			Map<XMLResource, Package> xmlPackages, Map<String, Set<String>> pendingUsers, Set<String> complete) {
+		var pending = pendingUsers.get(id);
+		if (complete.contains(id) && (pending == null || pending.isEmpty())) {
+			var xmlResource = xmlResources.remove(id);
+			if (xmlResource != null) {
+				var p = xmlPackages.remove(xmlResource);
+				if (p != null) {
+					packageToResourceMap.remove(p);
+					converted.remove(p);
+				}
+				usedResources.remove(xmlResource);
+				created.remove(xmlResource);
+				xmlResource.unload();
+				resourceSet.getResources().remove(xmlResource);
+			}
+		}
+	}
+
+	/**
+	 * Add with statements for the AADL packages that the AADL package in a resource refers to.
+	 * @param xmlResource the resource
+	 * @return the number of with statements
+	 */
+	private int addWithStatements(Resource xmlResource) {
+		var withCount = 0;
+		var used = usedResources.get(xmlResource);
+		if (used != null) {
+			var pkg = (AadlPackage) xmlResource.getContents().get(0);
+			for (var res : used) {
+				if (!res.getContents().isEmpty()) {
+					pkg.getOwnedPublicSection().getImportedUnits().add((AadlPackage) res.getContents().get(0));
+					withCount++;
+				}
+			}
+		}
+		return withCount;
+	}
+
+	/**
+	 * Copy the AADL package from an intermediate resource to a new AADL resource.
+	 * @param xmlResource the intermediate resource
+	 * @return the AADL resource
+	 */
+	private Resource copyToAADL(Resource xmlResource) {
+		var aadlResource = resourceSet
+				.createResource(xmlResource.getURI().trimFileExtension().appendFileExtension("aadl"));
+		aadlResource.getContents().add(EcoreUtil.copy(xmlResource.getContents().get(0)));
+		return aadlResource;
+	}
+
+	private void converted(String message, Element e) {
+		if (diagnostics.isEnabled(Kind.CONVERTED)) {
+			diagnostics.report(Kind.CONVERTED, message, e);
+		}
+	}
+
+	private void skipped(String message, Element e) {
+		if (diagnostics.isEnabled(Kind.SKIPPED)) {
+			diagnostics.report(Kind.SKIPPED, message, e);
+		}
+	}
+
+	private void warning(String message, Element e) {
+		if (diagnostics.isEnabled(Kind.WARNING)) {
+			diagnostics.report(Kind.WARNING, message, e);
+		}
+	}
+
+	private void startPhase(Phase phase) {
+		if (metrics != null) {
+			metrics.start(phase);
+		}
+	}
+
+	private void endPhase(Phase phase, long elements) {
+		if (metrics != null) {
+			metrics.end(phase, elements);
+		}
+	}
+
 	/**
 	 * Convert the content of a SysML resource to AADL
 	 * @param sysmlResource the resource to convert
@@ -245,7 +804,7 @@ public class SysML2AADLConverter {
 	public List<Resource> convert(Resource sysmlResource) {
 		var ns = (Namespace) sysmlResource.getContents().get(0);
 
-		for (var m : ns.getOwnedMember()) {
+		for (var m : snapshot.getOwnedMember(ns)) {
 			if (m instanceof Package p) {
 				convertPackage(p);
 			}
@@ -253,30 +812,181 @@ public class SysML2AADLConverter {
 		return created;
 	}
 
+	/**
+	 * Convert the packages that are referenced from generated AADL but have not been selected
+	 * for conversion. Only packages from the given resources are converted.
+	 * @param sysmlResources the resources to convert
+	 */
+	private void convertDependencies(Collection<Resource> sysmlResources) {
+		List<Package> pending;
+		do {
+			pending = new ArrayList<>();
+			for (var p : packageToResourceMap.keySet()) {
+				if (!converted.contains(p) && sysmlResources.contains(p.eResource())) {
+					pending.add(p);
+				}
+			}
+			for (var p : pending) {
+				converted("converting referenced package", p);
+				convertPackage(p, false);
+			}
+		} while (!pending.isEmpty());
+	}
+
+	/**
+	 * Convert the packages in a collection of SysML resources on a pool of threads.
+	 * Each package is converted by a worker with its own table of referenced resources.
+	 * Afterwards the resources and references from all workers are merged in the order
+	 * in which a sequential conversion creates them. Workers read derived features of the
+	 * SysML model only through the shared snapshot, which computes them one at a time.
+	 * @param sysmlResources the resources to convert
+	 */
+	private void convertParallel(Collection<Resource> sysmlResources) {
+		var roots = new ArrayList<Package>();
+		var packages = new ArrayList<Package>();
+
+		for (var r : sysmlResources) {
+			monitor.subTask(r.getURI().toFileString());
+			// workers must not resolve proxies concurrently
+			EcoreUtil.resolveAll(r);
+			var ns = (Namespace) r.getContents().get(0);
+			for (var m : snapshot.getOwnedMember(ns)) {
+				if (m instanceof Package p) {
+					roots.add(p);
+					collectPackages(p, packages);
+				}
+			}
+			monitor.worked(1);
+		}
+
+		var shared = new ConcurrentHashMap<Package, XMLResource>();
+		var tasks = new LinkedHashMap<Package, Future<SysML2AADLConverter>>();
+		var executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			for (var p : packages) {
+				tasks.put(p, executor.submit(() -> {
+					var worker = new SysML2AADLConverter(this, shared);
+					worker.convertPackage(p);
+					return worker;
+				}));
+			}
+			var merged = new HashSet<XMLResource>();
+			for (var p : roots) {
+				mergeWorker(p, tasks, merged);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Collect a package and all its nested packages.
+	 * @param sp the package
+	 * @param packages the list to add the packages to
+	 */
+	private void collectPackages(Package sp, List<Package> packages) {
+		packages.add(sp);
+		for (var m : snapshot.getOwnedMember(sp)) {
+			if (m instanceof Package p) {
+				collectPackages(p, packages);
+			}
+		}
+	}
+
+	/**
+	 * Merge the results of the worker that converted a package into this converter.
+	 * The workers for nested packages are merged at the point where a sequential conversion
+	 * would have converted them.
+	 * @param sp the package
+	 * @param tasks the tasks of all workers
+	 * @param merged the resources already added to the resource set
+	 */
+	private void mergeWorker(Package sp, Map<Package, Future<SysML2AADLConverter>> tasks, Set<XMLResource> merged) {
+		SysML2AADLConverter worker;
+		try {
+			worker = tasks.get(sp).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new Error("conversion interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error err) {
+				throw err;
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		for (var o : worker.trace) {
+			if (o instanceof XMLResource r) {
+				if (merged.add(r)) {
+					resourceSet.getResources().add(r);
+					created.add(r);
+				}
+			} else if (o instanceof Package p) {
+				mergeWorker(p, tasks, merged);
+			}
+		}
+		worker.packageToResourceMap.forEach(packageToResourceMap::putIfAbsent);
+		converted.addAll(worker.converted);
+		usedResources.putAll(worker.usedResources);
+	}
+
 	/**
 	 * Convert a SusML package to one or more AADL packages.
 	 * AADL packages cannot be nested.
 	 * @param sp the package to convert
 	 */
 	private void convertPackage(Package sp) {
-		logger.info("converting package " + sp.getQualifiedName());
+		if (packageFilter == null || packageFilter.test(sp)) {
+			convertPackage(sp, true);
+		} else {
+			for (var m : snapshot.getOwnedMember(sp)) {
+				if (m instanceof Package p) {
+					convertNestedPackage(p);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Convert a SysML package to an AADL package.
+	 * @param sp the package to convert
+	 * @param nested if true, also convert the nested packages
+	 */
+	private void convertPackage(Package sp, boolean nested) {
+		converted.add(sp);
+		converted("converting package", sp);
 		XMLResource res = getPackageResource(sp);
 		var ap = Aadl2Factory.eINSTANCE.createAadlPackage();
 		res.getContents().add(ap);
-		ap.setName(sp.getQualifiedName());
+		ap.setName(snapshot.getQualifiedName(sp));
 		res.setID(ap, sp.getElementId());
 
 		var pub = ap.createOwnedPublicSection();
 
-		for (var m : sp.getOwnedMember()) {
+		for (var m : snapshot.getOwnedMember(sp)) {
 			if (m instanceof PartDefinition pd) {
 				convertPartDefinition(res, pub, pd);
-			} else if (m instanceof Package p) {
-				convertPackage(p);
+			} else if (nested && m instanceof Package p) {
+				convertNestedPackage(p);
 			}
 		}
 	}
 
+	/**
+	 * Convert a nested SysML package.
+	 * @param p the nested package
+	 */
+	private void convertNestedPackage(Package p) {
+		if (trace != null) {
+			// nested packages are converted by their own worker
+			trace.add(p);
+		} else {
+			convertPackage(p);
+		}
+	}
+
 	/**
 	 * Convert a SysML part definition to an AADL classifier.
 	 * @param res the resource containing the generated AADL model
@@ -284,8 +994,8 @@ public class SysML2AADLConverter {
 	 * @param pd the part definition to convert
 	 */
 	private void convertPartDefinition(XMLResource res, PackageSection section, PartDefinition pd) {
-		if (pd.specializesFromLibrary("AADL::Component")) {
-			logger.info("converting part definition " + pd.getQualifiedName());
+		if (snapshot.specializesFromLibrary(pd, "AADL::Component")) {
+			converted("converting part definition", pd);
 			// testCategory(pd);
 			var c = createComponentClassifier(pd);
 			if (c != null) {
@@ -293,12 +1003,12 @@ public class SysML2AADLConverter {
 				res.setID(c, pd.getElementId());
 				if (c instanceof ComponentType ctype) {
 					addExtension(res, ctype, pd);
-					for (var m : pd.getOwnedMember()) {
+					for (var m : snapshot.getOwnedMember(pd)) {
 						if (m instanceof PortUsage p) {
 							convertPortUsage(res, ctype, p);
 						}
 					}
-					for (var f : pd.getOwnedFeature()) {
+					for (var f : snapshot.getOwnedFeature(pd)) {
 						if (f instanceof AttributeUsage a) {
 							convertAttributeUsage(res, ctype, a);
 						}
@@ -307,7 +1017,7 @@ public class SysML2AADLConverter {
 				if (c instanceof ComponentImplementation cimpl) {
 					addExtension(res, cimpl, pd);
 					addRealization(res, cimpl, pd);
-					for (var f : pd.getOwnedFeature()) {
+					for (var f : snapshot.getOwnedFeature(pd)) {
 						if (f instanceof PartUsage p) {
 							convertPartUsage(res, cimpl, p);
 						}
@@ -323,10 +1033,10 @@ public class SysML2AADLConverter {
 					}
 				}
 			} else {
-				logger.error("cannot create AADL classifier for " + pd.getQualifiedName());
+				logger.error("cannot create AADL classifier for " + snapshot.getQualifiedName(pd));
 			}
 		} else {
-			logger.warn("skipping part definition " + pd.getQualifiedName());
+			skipped("skipping part definition", pd);
 		}
 	}
 
@@ -337,16 +1047,17 @@ public class SysML2AADLConverter {
 	 * @param port the port usage to convert
 	 */
 	private void convertPortUsage(XMLResource res, ComponentType ctype, PortUsage port) {
-		port.getPortDefinition().stream().filter(pd -> pd.specializesFromLibrary("AADL::Feature")).findFirst()
+		Arrays.stream(snapshot.getPortDefinition(port))
+				.filter(pd -> snapshot.specializesFromLibrary(pd, "AADL::Feature")).findFirst()
 				.ifPresent(pd -> {
 					var f = createFeature(res, port, pd);
 					if (f != null) {
-						logger.info("converting port usage " + port.getQualifiedName());
+						converted("converting port usage", port);
 						if (addFeature(ctype, f)) {
 							res.setID(f, port.getElementId());
 						}
 					} else {
-						logger.warn("skipping port usage " + port.getQualifiedName());
+						skipped("skipping port usage", port);
 					}
 				});
 	}
@@ -358,16 +1069,17 @@ public class SysML2AADLConverter {
 	 * @param part the part usage to convert
 	 */
 	private void convertPartUsage(XMLResource res, ComponentImplementation cimpl, PartUsage part) {
-		part.getPartDefinition().stream().filter(pd -> pd.specializesFromLibrary("AADL::Component")).findFirst()
+		Arrays.stream(snapshot.getPartDefinition(part))
+				.filter(pd -> snapshot.specializesFromLibrary(pd, "AADL::Component")).findFirst()
 				.ifPresent(pd -> {
 					var s = createSubcomponent(res, part, pd);
 					if (s != null) {
-						logger.info("converting part usage " + part.getQualifiedName());
+						converted("converting part usage", part);
 						if (addSubcomponent(cimpl, s)) {
 							res.setID(s, part.getElementId());
 						}
 					} else {
-						logger.warn("skipping part usage " + part.getQualifiedName());
+						skipped("skipping part usage", part);
 					}
 				});
 	}
@@ -379,32 +1091,30 @@ public class SysML2AADLConverter {
 	 * @param conn the connection usage to convert
 	 */
 	private void convertConnectionUsage(XMLResource res, ComponentImplementation cimpl, ConnectionUsage conn) {
-		conn.getConnectionDefinition().stream().filter(cd -> cd.specializesFromLibrary("AADL::Connection")).findFirst()
+		Arrays.stream(snapshot.getConnectionDefinition(conn))
+				.filter(cd -> snapshot.specializesFromLibrary(cd, "AADL::Connection")).findFirst()
 				.ifPresent(cd -> {
 					var c = createConnection(res, conn, (ConnectionDefinition) cd);
 					if (c != null) {
-						logger.info("converting connection usage " + conn.getQualifiedName());
+						converted("converting connection usage", conn);
 						if (addConnection(cimpl, c)) {
 							res.setID(c, conn.getElementId());
 						}
 					} else {
-						logger.warn("skipping connection usage " + conn.getQualifiedName());
+						skipped("skipping connection usage", conn);
 					}
 				});
-		conn.getConnectionDefinition().stream().filter(cd -> cd.specializesFromLibrary("AADL::ActualBinding"))
+		Arrays.stream(snapshot.getConnectionDefinition(conn))
+				.filter(cd -> snapshot.specializesFromLibrary(cd, "AADL::ActualBinding"))
 				.findFirst().ifPresent(cd -> {
-					var name = conn.getQualifiedName();
-					if (name == null) {
-						name = "<unnamed>";
-					}
 					var b = createActualBinding(res, conn, (ConnectionDefinition) cd);
 					if (b != null) {
-						logger.info("converting connection usage " + name);
+						converted("converting connection usage", conn);
 						if (addPropertyAssociation(cimpl, b)) {
 							res.setID(b, conn.getElementId());
 						}
 					} else {
-						logger.warn("skipping connection usage " + name);
+						skipped("skipping connection usage", conn);
 					}
 				});
 	}
@@ -418,16 +1128,17 @@ public class SysML2AADLConverter {
 	 */
 	private void convertBindingConnectorAsUsage(XMLResource res, ComponentImplementation cimpl,
 			BindingConnectorAsUsage cu) {
-		cu.getDefinition().stream().filter(cl -> cl.specializesFromLibrary("AADL::Connection")).findFirst()
+		Arrays.stream(snapshot.getDefinition(cu))
+				.filter(cl -> snapshot.specializesFromLibrary(cl, "AADL::Connection")).findFirst()
 				.ifPresent(cl -> {
 					var c = createConnection(res, cu, cl);
 					if (c != null) {
-						logger.info("converting binding connector as usage " + cu.getQualifiedName());
+						converted("converting binding connector as usage", cu);
 						if (addConnection(cimpl, c)) {
 							res.setID(c, cu.getElementId());
 						}
 					} else {
-						logger.warn("skipping binding connector as usage " + cu.getQualifiedName());
+						skipped("skipping binding connector as usage", cu);
 					}
 				});
 	}
@@ -439,16 +1150,17 @@ public class SysML2AADLConverter {
 	 * @param au
 	 */
 	private void convertAttributeUsage(XMLResource res, ComponentClassifier cc, AttributeUsage au) {
-		au.getDefinition().stream().filter(cl -> cl.specializesFromLibrary("AADL::Property")).findFirst()
+		Arrays.stream(snapshot.getDefinition(au))
+				.filter(cl -> snapshot.specializesFromLibrary(cl, "AADL::Property")).findFirst()
 				.ifPresent(cl -> {
 					var pa = createPropertyAssociation(res, au);
 					if (pa != null) {
-						logger.info("converting attribute usage " + au.getQualifiedName());
+						converted("converting attribute usage", au);
 						if (addPropertyAssociation(cc, pa)) {
 							res.setID(pa, au.getElementId());
 						}
 					} else {
-						logger.warn("skipping attribute usage " + au.getQualifiedName());
+						skipped("skipping attribute usage", au);
 					}
 				});
 	}
@@ -462,9 +1174,16 @@ public class SysML2AADLConverter {
 	private XMLResource getPackageResource(Package p) {
 		var r = packageToResourceMap.get(p);
 		if (r == null) {
-			var uri = URI.createFileURI(p.getQualifiedName()).appendFileExtension("xml");
-			r = (XMLResource) resourceSet.createResource(uri);
-			created.add(r);
+			var uri = URI.createFileURI(snapshot.getQualifiedName(p)).appendFileExtension("xml");
+			if (sharedResources == null) {
+				r = (XMLResource) resourceSet.createResource(uri);
+				created.add(r);
+			} else {
+				// the resource set is not thread safe, resources are added when the workers are merged
+				r = sharedResources.computeIfAbsent(p,
+						k -> (XMLResource) resourceSet.getResourceFactoryRegistry().getFactory(uri).createResource(uri));
+				trace.add(r);
+			}
 			packageToResourceMap.put(p, r);
 		}
 		return r;
@@ -497,9 +1216,9 @@ public class SysML2AADLConverter {
 	 * @param pd the part definition
 	 */
 	private void addExtension(XMLResource res, ComponentImplementation cimpl, PartDefinition pd) {
-		pd.getOwnedSubclassification().stream().map(s -> s.getSuperclassifier())
-				.filter(c -> !aadlLibraryElements.containsKey(c.getElementId())
-						&& c.specializesFromLibrary("AADL::Component") && !isAADLType(c))
+		Arrays.stream(snapshot.getSuperclassifiers(pd))
+				.filter(c -> !aadlLibraryElements.contains(c.getElementId())
+						&& snapshot.specializesFromLibrary(c, "AADL::Component") && !isAADLType(c))
 				.findFirst().ifPresent(c -> {
 					var e = cimpl.createOwnedExtension();
 					var extended = (ComponentImplementation) getReferencedEObject(res,
@@ -517,9 +1236,9 @@ public class SysML2AADLConverter {
 	 * @param pd the part definition
 	 */
 	private void addExtension(XMLResource res, ComponentType ctype, PartDefinition pd) {
-		pd.getOwnedSubclassification().stream().map(s -> s.getSuperclassifier())
-				.filter(c -> !aadlLibraryElements.containsKey(c.getElementId())
-						&& c.specializesFromLibrary("AADL::Component") && isAADLType(c))
+		Arrays.stream(snapshot.getSuperclassifiers(pd))
+				.filter(c -> !aadlLibraryElements.contains(c.getElementId())
+						&& snapshot.specializesFromLibrary(c, "AADL::Component") && isAADLType(c))
 				.findFirst().ifPresent(c -> {
 					var e = ctype.createOwnedExtension();
 					var extended = (ComponentType) getReferencedEObject(res, Aadl2Package.eINSTANCE.getComponentType(),
@@ -537,8 +1256,9 @@ public class SysML2AADLConverter {
 	 * @param pd the part definition.
 	 */
 	private void addRealization(XMLResource res, ComponentImplementation cimpl, PartDefinition pd) {
-		pd.getOwnedSubclassification().stream().map(s -> s.getSuperclassifier())
-				.filter(c -> c.specializesFromLibrary("AADL::Component") && isAADLType(c)).findFirst().ifPresent(c -> {
+		Arrays.stream(snapshot.getSuperclassifiers(pd))
+				.filter(c -> snapshot.specializesFromLibrary(c, "AADL::Component") && isAADLType(c)).findFirst()
+				.ifPresent(c -> {
 					var r = cimpl.createOwnedRealization();
 					var implemented = (ComponentType) getReferencedEObject(res,
 							Aadl2Package.eINSTANCE.getComponentType(), c);
@@ -560,7 +1280,7 @@ public class SysML2AADLConverter {
 	 * @return true iff pd represents an AADL component type
 	 */
 	private boolean isAADLType(Type pd) {
-		return pd.getName().indexOf('.') == -1;
+		return snapshot.getName(pd).indexOf('.') == -1;
 	}
 
 	/** The names of AADL feature categorie. */
@@ -589,11 +1309,11 @@ public class SysML2AADLConverter {
 	private ComponentClassifier createComponentClassifier(PartDefinition pd) {
 		for (var cname : aadlComponentCategories) {
 			var lname = "AADL::" + cname;
-			if (pd.specializesFromLibrary(lname)) {
+			if (snapshot.specializesFromLibrary(pd, lname)) {
 				var eClass = (EClass) Aadl2Package.eINSTANCE
 						.getEClassifier(cname + (isAADLType(pd) ? "Type" : "Implementation"));
 				var s = (ComponentClassifier) Aadl2Factory.eINSTANCE.create(eClass);
-				s.setName(pd.getName());
+				s.setName(snapshot.getName(pd));
 				return s;
 			}
 		}
@@ -612,26 +1332,27 @@ public class SysML2AADLConverter {
 			var vba = cn.equals("VirtualBusAccess");
 			var cname = vba ? "BusAccess" : cn;
 			var n = "AADL::" + cname;
-			if (n.equals(pd.getQualifiedName()) || pd.specializesFromLibrary(n)) {
+			if (snapshot.isOrSpecializesFromLibrary(pd, n)) {
 				var eClass = (EClass) Aadl2Package.eINSTANCE.getEClassifier(cname);
 				var f = (Feature) Aadl2Factory.eINSTANCE.create(eClass);
-				f.setName(p.getName());
+				f.setName(snapshot.getName(p));
 				if (vba) {
 					((BusAccess) f).setVirtual(true);
 				}
-				if (!setDirection(f, p.getDirection())) {
-					logger.error("inout port " + p.getQualifiedName() + "cannot be translated to access feature");
+				if (!setDirection(f, snapshot.read(p::getDirection))) {
+					logger.error("inout port " + snapshot.getQualifiedName(p)
+							+ "cannot be translated to access feature");
 					return null;
 				}
-				p.getUsage().stream().filter(ItemUsage.class::isInstance).map(ItemUsage.class::cast).findFirst()
-						.ifPresent(iu -> {
-							var type = iu.getType().get(0);
-							if (type.libraryNamespace() != null && "AADL".equals(type.libraryNamespace().getName())) {
-								return;
+				snapshot.read(() -> p.getUsage().stream().filter(ItemUsage.class::isInstance)
+						.map(ItemUsage.class::cast).findFirst().map(iu -> iu.getType().get(0))
+						.filter(type -> type.libraryNamespace() == null
+								|| !"AADL".equals(type.libraryNamespace().getName())))
+						.ifPresent(type -> {
+							if (logger.isDebugEnabled()) {
+								logger.debug("setting classifier for feature " + snapshot.getQualifiedName(p));
 							}
 
-							logger.debug("setting classifier for feature " + p.getQualifiedName());
-
 							var fType = getReferencedEObject(res, Aadl2Package.eINSTANCE.getComponentClassifier(),
 									type);
 							String sfname = null;
@@ -705,28 +1426,29 @@ public class SysML2AADLConverter {
 	private Subcomponent createSubcomponent(XMLResource res, PartUsage p, PartDefinition pd) {
 		for (var cname : aadlComponentCategories) {
 			var n = "AADL::" + cname;
-			var setClassifier = pd.specializesFromLibrary(n);
-			if (n.equals(pd.getQualifiedName()) || setClassifier) {
+			var setClassifier = snapshot.specializesFromLibrary(pd, n);
+			if (n.equals(snapshot.getQualifiedName(pd)) || setClassifier) {
 				var eClass = (EClass) Aadl2Package.eINSTANCE.getEClassifier(cname + "Subcomponent");
 				var s = (Subcomponent) Aadl2Factory.eINSTANCE.create(eClass);
-				s.setName(p.getName());
+				s.setName(snapshot.getName(p));
 				if (setClassifier) {
 					var subType = getReferencedEObject(res, Aadl2Package.eINSTANCE.getComponentClassifier(), pd);
 					var fname = cname.toLowerCase() + "SubcomponentType";
 					var f = s.eClass().getEStructuralFeature(fname);
 					s.eSet(f, subType);
 				}
-				var redefs = p.getOwnedRedefinition();
+				var redefs = snapshot.read(
+						() -> p.getOwnedRedefinition().stream().map(Redefinition::getRedefinedFeature).toList());
 				if (redefs.size() == 1) {
-					var redef = redefs.get(0).getRedefinedFeature();
-					if (p.getDeclaredName() == null || p.getDeclaredName() == redef.getName()) {
+					var redef = redefs.get(0);
+					if (p.getDeclaredName() == null || p.getDeclaredName() == snapshot.getName(redef)) {
 						s.setRefined((Subcomponent) getReferencedEObject(res, Aadl2Package.eINSTANCE.getSubcomponent(),
 								redef));
 					} else {
-						logger.warn("ignoring redefinition with renaming for part usage " + p.getQualifiedName());
+						warning("ignoring redefinition with renaming for part usage", p);
 					}
 				} else {
-					logger.warn("ignoring multiple redefinitions for part usage " + p.getQualifiedName());
+					warning("ignoring multiple redefinitions for part usage", p);
 				}
 				return s;
 			}
@@ -745,18 +1467,19 @@ public class SysML2AADLConverter {
 		for (var cn : aadlConnectionCategories) {
 			var cname = cn + "Connection";
 			var n = "AADL::" + cname;
-			if (n.equals(cd.getQualifiedName()) || cd.specializesFromLibrary(n)) {
+			if (snapshot.isOrSpecializesFromLibrary(cd, n)) {
 				var eClass = (EClass) Aadl2Package.eINSTANCE.getEClassifier(cname);
 				var c = (Connection) Aadl2Factory.eINSTANCE.create(eClass);
-				c.setName(cu.getName());
-				var success = fillConnectedElement(c.createSource(), res, cu, cu.getSourceFeature(), "source");
-				var tf = cu.getTargetFeature();
-				if (tf.size() > 1) {
+				c.setName(snapshot.getName(cu));
+				var success = fillConnectedElement(c.createSource(), res, cu, snapshot.getSourceFeature(cu),
+						"source");
+				var tf = snapshot.getTargetFeature(cu);
+				if (tf.length > 1) {
 					logger.error(
-							"connection usage " + cu.getQualifiedName() + " does not have exactly one target feature");
+							"connection usage " + snapshot.getQualifiedName(cu) + " does not have exactly one target feature");
 					return null;
 				}
-				success &= fillConnectedElement(c.createDestination(), res, cu, cu.getTargetFeature().get(0), "target");
+				success &= fillConnectedElement(c.createDestination(), res, cu, tf[0], "target");
 				return success ? c : null;
 			}
 		}
@@ -774,18 +1497,19 @@ public class SysML2AADLConverter {
 		for (var cn : aadlConnectionCategories) {
 			var cname = cn + "Connection";
 			var n = "AADL::" + cname;
-			if (n.equals(cd.getQualifiedName()) || cd.specializesFromLibrary(n)) {
+			if (snapshot.isOrSpecializesFromLibrary(cd, n)) {
 				var eClass = (EClass) Aadl2Package.eINSTANCE.getEClassifier(cname);
 				var c = (Connection) Aadl2Factory.eINSTANCE.create(eClass);
-				c.setName(cu.getName());
-				var success = fillConnectedElement(c.createSource(), res, cu, cu.getSourceFeature(), "source");
-				var tf = cu.getTargetFeature();
-				if (tf.size() > 1) {
-					logger.error("binding connection as usage " + cu.getQualifiedName()
+				c.setName(snapshot.getName(cu));
+				var success = fillConnectedElement(c.createSource(), res, cu, snapshot.getSourceFeature(cu),
+						"source");
+				var tf = snapshot.getTargetFeature(cu);
+				if (tf.length > 1) {
+					logger.error("binding connection as usage " + snapshot.getQualifiedName(cu)
 							+ " does not have exactly one target feature");
 					return null;
 				}
-				success &= fillConnectedElement(c.createDestination(), res, cu, cu.getTargetFeature().get(0), "target");
+				success &= fillConnectedElement(c.createDestination(), res, cu, tf[0], "target");
 				return success ? c : null;
 			}
 		}
@@ -803,18 +1527,19 @@ public class SysML2AADLConverter {
 		for (var bn : aadlBindingCategories) {
 			var bname = "Actual" + bn + "Binding";
 			var n = "AADL::" + bname;
-			if (n.equals(cd.getQualifiedName()) || cd.specializesFromLibrary(n)) {
+			if (snapshot.isOrSpecializesFromLibrary(cd, n)) {
 				var pa = (PropertyAssociation) Aadl2Factory.eINSTANCE.createPropertyAssociation();
 				var pn = "Deployment_Properties::Actual_" + bn + "_Binding";
 				Property prop = findProperty(pn);
 				pa.setProperty(prop);
-				var success = fillContainedNamedElement(pa.createAppliesTo(), res, cu, cu.getSourceFeature(), "source");
+				var success = fillContainedNamedElement(pa.createAppliesTo(), res, cu, snapshot.getSourceFeature(cu),
+						"source");
 
 				var value = pa.createOwnedValue();
 				var list = (ListValue) value.createOwnedValue(Aadl2Package.eINSTANCE.getListValue());
 
 				int i = 0;
-				for (var tf : cu.getTargetFeature()) {
+				for (var tf : snapshot.getTargetFeature(cu)) {
 					var rv = Aadl2Factory.eINSTANCE.createReferenceValue();
 					success &= fillContainedNamedElement(rv, res, cu, tf, "target[" + i++ + "]");
 					list.getOwnedListElements().add(rv);
@@ -833,7 +1558,7 @@ public class SysML2AADLConverter {
 	 * @return a completely filled property association or null
 	 */
 	private PropertyAssociation createPropertyAssociation(XMLResource res, AttributeUsage au) {
-		var pn = au.getName();
+		var pn = snapshot.getName(au);
 		var pa = (PropertyAssociation) Aadl2Factory.eINSTANCE.createPropertyAssociation();
 		Property prop = findProperty(pn);
 		if (pn == null) {
@@ -866,23 +1591,14 @@ public class SysML2AADLConverter {
 	private boolean fillIntegerLiteral(org.omg.sysml.lang.sysml.Feature f, String propName, PropertyType pt, IntegerLiteral intValue) {
 		boolean success = false;
 		try {
-			var v = EvaluationUtil.evaluate(FeatureUtil.getValueExpressionFor(f), f).get(0);
-			var neg = false;
-			var ival = 0;
-			var unit = "";
-			if (v instanceof OperatorExpression oe) {
-				if ("-".equals(oe.getOperator())) {
-					neg = true;
-					oe = (OperatorExpression) oe.getOperand().get(0);
-				}
-				if ("[".equals(oe.getOperator())) {
-					ival = ((LiteralInteger) oe.getOperand().get(0)).getValue();
-					unit = ((FeatureReferenceExpression) oe.getOperand().get(1)).getOwnedMembership().get(0)
-							.getMemberElement().getShortName();
-				}
-			}
-
-			intValue.setValue(neg ? -ival : ival);
+			var quantity = snapshot.read(() -> {
+				var expr = snapshot.getValueExpression(f);
+				// plain 'N [unit]' values do not need the evaluator
+				return toQuantity(isQuantityLiteral(expr) ? expr : snapshot.evaluate(expr, f));
+			});
+			var unit = quantity.unit();
+
+			intValue.setValue(quantity.value());
 			var unitLiteral = findUnit(pt, unit);
 			if (unitLiteral != null) {
 				intValue.setUnit(unitLiteral);
@@ -896,6 +1612,51 @@ public class SysML2AADLConverter {
 		return success;
 	}
 
+	/** An integer value with the short name of its unit. */
+	private record Quantity(int value, String unit) {
+	}
+
+	/**
+	 * Get the value and unit of an integer literal with unit, i.e., 'N [unit]' or '-N [unit]'.
+	 * @param v the result of evaluating a value expression
+	 * @return the value and unit, 0 without unit if v is not an integer literal with unit
+	 */
+	private static Quantity toQuantity(Element v) {
+		var neg = false;
+		var ival = 0;
+		var unit = "";
+		if (v instanceof OperatorExpression oe) {
+			if ("-".equals(oe.getOperator())) {
+				neg = true;
+				oe = (OperatorExpression) oe.getOperand().get(0);
+			}
+			if ("[".equals(oe.getOperator())) {
+				ival = ((LiteralInteger) oe.getOperand().get(0)).getValue();
+				unit = ((FeatureReferenceExpression) oe.getOperand().get(1)).getOwnedMembership().get(0)
+						.getMemberElement().getShortName();
+			}
+		}
+		return new Quantity(neg ? -ival : ival, unit);
+	}
+
+	/**
+	 * Check if an expression is an integer literal with unit, i.e., has the form 'N [unit]'
+	 * or '-N [unit]'. These are the expressions handled by fillIntegerLiteral.
+	 * @param e the expression
+	 * @return true iff the expression is an integer literal with unit
+	 */
+	private static boolean isQuantityLiteral(Expression e) {
+		if (e instanceof OperatorExpression oe && "-".equals(oe.getOperator()) && oe.getOperand().size() == 1) {
+			e = oe.getOperand().get(0);
+		}
+		if (e instanceof OperatorExpression oe && "[".equals(oe.getOperator())) {
+			var operands = oe.getOperand();
+			return operands.size() == 2 && operands.get(0) instanceof LiteralInteger
+					&& operands.get(1) instanceof FeatureReferenceExpression;
+		}
+		return false;
+	}
+
 	/**
 	 * Fill an AADL range value from a SysML attribute usage
 	 * @param au the attribute usage
@@ -906,8 +1667,8 @@ public class SysML2AADLConverter {
 	private boolean fillRangeValue(AttributeUsage au, Property prop, RangeValue rangeValue) {
 		boolean success = true;
 		try {
-			for (var f : au.getFeature()) {
-				switch (f.getName()) {
+			for (var f : snapshot.getFeature(au)) {
+				switch (snapshot.getName(f)) {
 				case "minimum": {
 					var intVal = (IntegerLiteral) rangeValue.createMinimum(Aadl2Package.eINSTANCE.getIntegerLiteral());
 					var pt = ((RangeType) prop.getPropertyType()).getNumberType();
@@ -946,6 +1707,17 @@ public class SysML2AADLConverter {
 	 * @return the property definition for the given name, or null
 	 */
 	private Property findProperty(String name) {
+		synchronized (propertyCache) {
+			return propertyCache.computeIfAbsent(name, this::lookupProperty);
+		}
+	}
+
+	/**
+	 * Look up an AADL property definition in the global scope.
+	 * @param name the name of the property
+	 * @return the property definition for the given name, or null
+	 */
+	private Property lookupProperty(String name) {
 		Property result = null;
 		if (name.contains("::")) {
 			result = Aadl2GlobalScopeUtil.get(propertyLookupContext, Aadl2Package.eINSTANCE.getElement(), name);
@@ -958,6 +1730,16 @@ public class SysML2AADLConverter {
 				}
 			}
 		}
+		if (result != null) {
+			// resolve the property type now, workers of a parallel conversion only read it
+			var pt = result.getPropertyType();
+			if (pt instanceof RangeType rt) {
+				pt = rt.getNumberType();
+			}
+			if (pt instanceof NumberType nt) {
+				nt.getUnitsType();
+			}
+		}
 		return result;
 	}
 
@@ -1004,16 +1786,16 @@ public class SysML2AADLConverter {
 			var end = (ConnectionEnd) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(), pu);
 			ce.setConnectionEnd(end);
 		} else {
-			var fcs = f.getOwnedFeatureChaining();
-			if (fcs.size() != 2) {
+			var fcs = snapshot.getChainingFeature(f);
+			if (fcs.length != 2) {
 				logger.error("there are not exactly two feature chainings in " + endName + " end of connection usage "
-						+ cu.getQualifiedName());
+						+ snapshot.getQualifiedName(cu));
 				return false;
 			}
 			var ctx = (Context) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(),
-					fcs.get(0).getChainingFeature());
+					fcs[0]);
 			var end = (ConnectionEnd) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(),
-					fcs.get(1).getChainingFeature());
+					fcs[1]);
 			ce.setContext(ctx);
 			ce.setConnectionEnd(end);
 		}
@@ -1035,25 +1817,25 @@ public class SysML2AADLConverter {
 			var end = (ConnectionEnd) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(), pu);
 			ce.setConnectionEnd(end);
 		} else {
-			var fcs = f.getOwnedFeatureChaining();
-			if (!(fcs.get(fcs.size() - 1).getChainingFeature() instanceof ItemUsage)) {
+			var fcs = snapshot.getChainingFeature(f);
+			if (!(fcs[fcs.length - 1] instanceof ItemUsage)) {
 				logger.error("last feature is not an item usage in " + endName + " end of binding connector as usage "
-						+ cu.getQualifiedName());
+						+ snapshot.getQualifiedName(cu));
 				return false;
 			}
 			ConnectionEnd end;
 			Context ctx = null;
-			if (fcs.size() == 2) {
+			if (fcs.length == 2) {
 				end = (ConnectionEnd) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(),
-						fcs.get(0).getChainingFeature());
-			} else if (fcs.size() == 3) {
+						fcs[0]);
+			} else if (fcs.length == 3) {
 				ctx = (Context) getReferencedEObject(res, Aadl2Package.eINSTANCE.getContext(),
-						fcs.get(0).getChainingFeature());
+						fcs[0]);
 				end = (ConnectionEnd) getReferencedEObject(res, Aadl2Package.eINSTANCE.getConnectionEnd(),
-						fcs.get(1).getChainingFeature());
+						fcs[1]);
 			} else {
 				logger.error("there are not exactly two or three feature chainings in " + endName
-						+ " end of binding connector as usage " + cu.getQualifiedName());
+						+ " end of binding connector as usage " + snapshot.getQualifiedName(cu));
 				return false;
 			}
 			ce.setContext(ctx);
@@ -1077,15 +1859,14 @@ public class SysML2AADLConverter {
 			var ne = (NamedElement) getReferencedEObject(res, Aadl2Package.eINSTANCE.getNamedElement(), pu);
 			cne.createPath().setNamedElement(ne);
 		} else {
-			var fcs = f.getOwnedFeatureChaining();
-			if (!(fcs.size() > 0)) {
+			var fcs = snapshot.getChainingFeature(f);
+			if (!(fcs.length > 0)) {
 				logger.error("there are no feature chainings in " + endName);
 				return false;
 			}
 			ContainmentPathElement path = null;
-			for (var fc : fcs) {
+			for (var cf : fcs) {
 				path = (path == null) ? cne.createPath() : path.createPath();
-				var cf = fc.getChainingFeature();
 				var ne = (NamedElement) getReferencedEObject(res, Aadl2Package.eINSTANCE.getNamedElement(), cf);
 				path.setNamedElement(ne);
 			}
@@ -1192,7 +1973,7 @@ public class SysML2AADLConverter {
 				var toRes = getPackageResource(pkg);
 				eo = ProxyUtil.createProxy(toRes, eClass, id);
 				if (eo instanceof NamedElement ne) {
-					ne.setName(to.getName());
+					ne.setName(snapshot.getName(to));
 				}
 				res.getContents().add(eo);
 				if (toRes != res) {
@@ -1200,7 +1981,7 @@ public class SysML2AADLConverter {
 					usedResources.get(res).add(toRes);
 				}
 			} else {
-				logger.fatal("referenced element " + to.getQualifiedName() + " not in a package");
+				logger.fatal("referenced element " + snapshot.getQualifiedName(to) + " not in a package");
 				throw new Error("SysML model cannot be converted to AADL");
 			}
 		}
@@ -22,26 +22,68 @@
  */
 package org.osate.sysml2aadl;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.plugin.EcorePlugin;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.omg.kerml.xtext.KerMLStandaloneSetup;
 import org.omg.sysml.lang.sysml.Element;
+import org.omg.sysml.lang.sysml.Namespace;
+import org.omg.sysml.lang.sysml.Package;
 import org.omg.sysml.lang.sysml.SysMLPackage;
 import org.omg.sysml.util.SysMLUtil;
 import org.omg.sysml.xtext.SysMLStandaloneSetup;
+import org.osate.aadl2.AadlPackage;
 import org.osate.pluginsupport.PluginSupportUtil;
+import org.osate.sysml.api.CommitCache;
 import org.osate.sysml.api.SysMLApiAccess;
+import org.osate.sysml.util.LibrarySnapshot;
 import org.osate.sysml.util.PrintingProgressMonitor;
+import org.osate.sysml2aadl.ConversionMetrics.Phase;
 import org.osate.xtext.aadl2.Aadl2StandaloneSetup;
 
 /**
@@ -60,8 +102,54 @@ public class SysML2AADLUtil extends SysMLUtil {
 
 	private String outputPath = null;
 
+	/** Directory for the library snapshot and the cache of elements read via the REST API. */
+	private String cachePath = null;
+
+	private int parallelism = 1;
+
+	/** The number of threads for parsing input files or concurrent requests for reading a project. */
+	private int parseThreads = 1;
+
+	/** The number of elements per request when reading all elements of a project. */
+	private int pageSize = 0;
+
+	/** Import projects in two passes without proxies for elements of the project. */
+	private boolean twoPass = false;
+
+	private boolean incremental = false;
+
+	private ConversionMetrics metrics = null;
+
+	private String diagnosticsPath = null;
+
+	private DiagnosticsReport diagnostics = null;
+
 	private Set<Resource> libraryResources = new HashSet<>();
 
+	/** Read conversion requests from stdin instead of converting the command line arguments. */
+	private boolean server = false;
+
+	/** Read conversion requests from a unix domain socket with this path. */
+	private String socketPath = null;
+
+	/** The context for property lookup, loaded once with the contributed AADL resources. */
+	private EObject propertyLookupContext = null;
+
+	/** The number of resources in the resource set that stay loaded between server requests. */
+	private int preloadedCount;
+
+	/** Convert packages one at a time and write each AADL file as soon as it is complete. */
+	private boolean streaming = false;
+
+	/** Write the AADL files on another thread while the remaining packages are converted. */
+	private boolean pipelined = false;
+
+	/** Watch the input files and convert again after changes. */
+	private boolean watch = false;
+
+	/** Time to wait for further changes after a file has changed in watch mode in milliseconds. */
+	private static final long WATCH_DELAY = 100;
+
 	SysML2AADLUtil() {
 		super();
 		KerMLStandaloneSetup.doSetup();
@@ -76,13 +164,19 @@ public class SysML2AADLUtil extends SysMLUtil {
 		if (n > 0) {
 			int i = 0;
 			while (i < n && ("-a".equals(args[i]) || "-b".equals(args[i]) || "-s".equals(args[i])
-					|| "-o".equals(args[i]) || "-v".equals(args[i]))) {
+					|| "-c".equals(args[i]) || "-o".equals(args[i]) || "-v".equals(args[i]) || "-j".equals(args[i]) || "-i".equals(args[i])
+					|| "-w".equals(args[i]) || "-t".equals(args[i]) || "--page-size".equals(args[i])
+					|| "--two-pass".equals(args[i]) || "--streaming".equals(args[i]) || "--pipelined".equals(args[i])
+					|| "--metrics".equals(args[i]) || "--diagnostics".equals(args[i]) || "--server".equals(args[i])
+					|| "--socket".equals(args[i]))) {
 				if ("-a".equals(args[i])) {
 					aadlLibraryPath = args[++i];
 				} else if ("-b".equals(args[i])) {
 					baseURL = args[++i];
 				} else if ("-s".equals(args[i])) {
 					sysmlLibraryPath = args[++i];
+				} else if ("-c".equals(args[i])) {
+					cachePath = args[++i];
 				} else if ("-o".equals(args[i])) {
 					outputPath = args[++i];
 					if (!outputPath.endsWith("/")) {
@@ -90,6 +184,32 @@ public class SysML2AADLUtil extends SysMLUtil {
 					}
 				} else if ("-v".equals(args[i])) {
 					verbose = true;
+				} else if ("-j".equals(args[i])) {
+					parallelism = Integer.parseInt(args[++i]);
+				} else if ("-t".equals(args[i])) {
+					parseThreads = Integer.parseInt(args[++i]);
+				} else if ("--page-size".equals(args[i])) {
+					pageSize = Integer.parseInt(args[++i]);
+				} else if ("--two-pass".equals(args[i])) {
+					twoPass = true;
+				} else if ("-i".equals(args[i])) {
+					incremental = true;
+				} else if ("-w".equals(args[i])) {
+					watch = true;
+					incremental = true;
+				} else if ("--streaming".equals(args[i])) {
+					streaming = true;
+				} else if ("--pipelined".equals(args[i])) {
+					pipelined = true;
+				} else if ("--metrics".equals(args[i])) {
+					metrics = new ConversionMetrics();
+				} else if ("--diagnostics".equals(args[i])) {
+					diagnosticsPath = args[++i];
+					diagnostics = new DiagnosticsReport();
+				} else if ("--server".equals(args[i])) {
+					server = true;
+				} else if ("--socket".equals(args[i])) {
+					socketPath = args[++i];
 				}
 				i++;
 			}
@@ -105,16 +225,12 @@ public class SysML2AADLUtil extends SysMLUtil {
 	 * Convert previously read input resources to AADL
 	 */
 	protected void process() {
-		var propertyLookupContext = loadContributedAADL();
-		var monitor = verbose ? new PrintingProgressMonitor(System.out) : new NullProgressMonitor();
-		var converter = new SysML2AADLConverter(getResourceSet(), libraryResources, propertyLookupContext, monitor);
-		var outputResources = converter.convert(getInputResources());
-
-		if (verbose)
-			printGeneratedAADL(outputResources);
+		convertFiles();
+	}
 
-		if (outputPath != null)
-			saveAADL(outputResources);
+	private List<Resource> convertFiles() {
+		var monitor = verbose ? new PrintingProgressMonitor(System.out) : new NullProgressMonitor();
+		return convert(getInputResources(), getPropertyLookupContext(), monitor, PackageDependencyGraph.FILE_NAME);
 	}
 
 	/**
@@ -123,23 +239,186 @@ public class SysML2AADLUtil extends SysMLUtil {
 	 * @param projectName
 	 */
 	protected void process(String projectName) {
-		var propertyLookupContext = loadContributedAADL();
+		convertProject(projectName);
+	}
 
+	private List<Resource> convertProject(String projectName) {
 		var monitor = verbose ? new PrintingProgressMonitor(System.out) : new NullProgressMonitor();
 		var apiAccess = new SysMLApiAccess(baseURL, getResourceSet(), libraryResources, monitor);
-		var sysmlResources = apiAccess.importProject(projectName);
+		apiAccess.setConcurrency(parseThreads);
+		apiAccess.setPageSize(pageSize);
+		apiAccess.setIncremental(incremental);
+		apiAccess.setTwoPass(twoPass);
+		startPhase(Phase.INPUT_PARSE);
+		List<Resource> sysmlResources;
+		try (var cache = openCommitCache()) {
+			apiAccess.setCache(cache);
+			sysmlResources = apiAccess.importProject(projectName);
+			if (verbose) {
+				System.out.println("Fetched " + apiAccess.getFetchRequests() + " elements for "
+						+ apiAccess.getFetchLookups() + " lookups, deduplication ratio "
+						+ String.format(Locale.ROOT, "%.2f", apiAccess.getDeduplicationRatio()));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("cannot use element cache in " + cachePath, e);
+		}
+		endPhase(Phase.INPUT_PARSE, sysmlResources);
 
 		if (verbose)
 			printImportedSysML(sysmlResources);
 
-		var converter = new SysML2AADLConverter(getResourceSet(), libraryResources, propertyLookupContext, monitor);
+		return convert(sysmlResources, getPropertyLookupContext(), monitor, projectName + ".deps");
+	}
+
+	/**
+	 * Open the cache for elements read via the REST API in the cache directory.
+	 * @return the cache or null if no cache directory is set
+	 * @throws IOException
+	 */
+	private CommitCache openCommitCache() throws IOException {
+		return cachePath == null ? null : new CommitCache(Paths.get(cachePath));
+	}
+
+	/**
+	 * Convert SysML resources to AADL and save the result. In incremental mode only the packages 
+	 * that changed since the last conversion and the packages depending on them are converted 
+	 * and saved. The package dependencies are stored in the output directory.
+	 * 
+	 * @param sysmlResources the resources to convert
+	 * @param propertyLookupContext the context for property lookup
+	 * @param monitor the progress monitor
+	 * @param graphFileName name of the file storing the package dependencies
+	 * @return the generated AADL resources
+	 */
+	private List<Resource> convert(Collection<Resource> sysmlResources, EObject propertyLookupContext,
+			IProgressMonitor monitor, String graphFileName) {
+		var converter = new SysML2AADLConverter(getResourceSet(), libraryResources, propertyLookupContext, monitor,
+				metrics);
+		converter.setParallelism(parallelism);
+		if (diagnostics != null) {
+			converter.setDiagnostics(diagnostics);
+		}
+
+		if (streaming) {
+			// each AADL package is written and unloaded as soon as it is complete
+			var outputResources = new ArrayList<Resource>();
+			converter.convert(sysmlResources, r -> {
+				if (verbose) {
+					printGeneratedAADL(List.of(r));
+				}
+				if (outputPath != null) {
+					startPhase(Phase.SERIALIZATION);
+					saveAADL(r);
+					endPhase(Phase.SERIALIZATION, 1);
+				}
+				outputResources.add(r);
+			});
+			return outputResources;
+		}
+
+		if (pipelined) {
+			// write the AADL files while the remaining packages are converted, resources that
+			// only the Xtext serializer can write are saved on this thread afterwards
+			var deferred = ConcurrentHashMap.<Resource>newKeySet();
+			List<Resource> outputResources;
+			try (var publisher = new SubmissionPublisher<Resource>()) {
+				var written = publisher.consume(r -> {
+					try {
+						if (!AADLTextEmitter.saveIfSupported(r, getOutputFile(r))) {
+							deferred.add(r);
+						}
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				});
+				outputResources = converter.convert(sysmlResources, publisher);
+				// only the part of the serialization that does not overlap with the conversion is measured
+				startPhase(Phase.SERIALIZATION);
+				try {
+					written.join();
+				} catch (CompletionException e) {
+					e.printStackTrace();
+				}
+				for (var r : outputResources) {
+					if (deferred.contains(r)) {
+						writeAADL(r);
+					}
+				}
+				endPhase(Phase.SERIALIZATION, outputResources.size());
+			}
+			if (verbose)
+				printGeneratedAADL(outputResources);
+			if (outputResources.isEmpty()) {
+				System.out.println("\nNo AADL files to save");
+			} else {
+				System.out.println("\nSaving files:");
+				if (verbose) {
+					for (var r : outputResources) {
+						System.out.println(URI.createFileURI(outputPath + r.getURI().toString()));
+					}
+				}
+			}
+			return outputResources;
+		}
+
+		var graphFile = incremental ? Paths.get(outputPath, graphFileName) : null;
+		PackageDependencyGraph graph = null;
+		Map<String, String> digests = null;
+		Set<String> dirty = null;
+		if (incremental) {
+			try {
+				graph = PackageDependencyGraph.load(graphFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				graph = new PackageDependencyGraph();
+			}
+			digests = PackageDependencyGraph.digests(sysmlResources);
+			dirty = graph.getDirtyPackages(digests, Paths.get(outputPath));
+			if (verbose) {
+				System.out.println("Converting " + dirty.size() + " of " + digests.size() + " packages");
+			}
+			var selected = dirty;
+			converter.setPackageFilter(p -> selected.contains(p.getQualifiedName()));
+		}
+
 		var outputResources = converter.convert(sysmlResources);
 
+		var fileNames = new HashMap<String, String>();
+		if (incremental) {
+			// packages converted only because they are referenced are already up to date
+			var selected = dirty;
+			outputResources.removeIf(r -> !selected.contains(((AadlPackage) r.getContents().get(0)).getName()));
+			for (var r : outputResources) {
+				fileNames.put(((AadlPackage) r.getContents().get(0)).getName(), r.getURI().toString());
+			}
+		}
+
 		if (verbose)
 			printGeneratedAADL(outputResources);
 
-		if (outputPath != null)
+		if (outputPath != null) {
+			startPhase(Phase.SERIALIZATION);
 			saveAADL(outputResources);
+			endPhase(Phase.SERIALIZATION, outputResources.size());
+		}
+
+		if (incremental) {
+			var dependencies = converter.getPackageDependencies();
+			for (var name : dirty) {
+				var fileName = fileNames.get(name);
+				if (fileName != null) {
+					graph.update(name, digests.get(name), fileName, dependencies.get(name));
+				}
+			}
+			try {
+				// remove the AADL files of packages that no longer exist
+				graph.retainAll(digests.keySet(), Paths.get(outputPath));
+				graph.save(graphFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return outputResources;
 	}
 
 	private void printImportedSysML(List<Resource> outputResources) {
@@ -180,7 +459,7 @@ public class SysML2AADLUtil extends SysMLUtil {
 				System.out.println();
 				System.out.println(or.getURI().toString() + ":\n");
 				try {
-					or.save(System.out, null);
+					new AADLTextEmitter(new BufferedWriter(new OutputStreamWriter(System.out))).emit(or);
 					System.out.println();
 				} catch (IOException e) {
 					e.printStackTrace();
@@ -195,17 +474,45 @@ public class SysML2AADLUtil extends SysMLUtil {
 		} else {
 			System.out.println("\nSaving files:");
 			for (var or : outputResources) {
-				var fileName = or.getURI().toString();
-				or.setURI(URI.createFileURI(outputPath + fileName));
-				if (verbose) {
-					System.out.println(or.getURI().toString());
-				}
-				try {
-					or.save(null);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+				saveAADL(or);
+			}
+		}
+	}
+
+	/**
+	 * Save an AADL resource to the output directory. The resource URI is the file name.
+	 * @param or the resource
+	 */
+	private void saveAADL(Resource or) {
+		if (verbose) {
+			System.out.println(URI.createFileURI(outputPath + or.getURI().toString()));
+		}
+		writeAADL(or);
+	}
+
+	/**
+	 * Get the file in the output directory for an AADL resource.
+	 * @param or the resource
+	 * @return the file
+	 */
+	private Path getOutputFile(Resource or) {
+		return Paths.get(URI.createFileURI(outputPath + or.getURI().toString()).toFileString());
+	}
+
+	/**
+	 * Write an AADL resource to its file in the output directory.
+	 * @param or the resource
+	 */
+	private void writeAADL(Resource or) {
+		var path = getOutputFile(or);
+		try {
+			if (watch) {
+				AADLTextEmitter.saveIfChanged(or, path);
+			} else {
+				AADLTextEmitter.save(or, path);
 			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -213,11 +520,11 @@ public class SysML2AADLUtil extends SysMLUtil {
 		var message = """
 				Usage:
 
-				java -jar sysml2aadl.jar -a path -s path -o path -v file ...
+				java -jar sysml2aadl.jar -a path -s path -c path -o path -v -j n -t n -i -w --streaming --pipelined --metrics --diagnostics file [--server | --socket path] file ...
 
 				This form reads files and translates them to AADL.
 
-				java -jar sysml2aadl.jar -a path -s path -o path iv -b URL project ...
+				java -jar sysml2aadl.jar -a path -s path -c path -o path -v -t n --page-size n --two-pass -i --streaming --pipelined --metrics --diagnostics file [--server | --socket path] -b URL project ...
 
 				This form reads projects from a SysML repository via its REST API.
 
@@ -239,6 +546,14 @@ public class SysML2AADLUtil extends SysMLUtil {
 				SysML library to translate time units s, min, and hr to AADL. It is sufficient
 				to pass the path to this file to the translator.
 
+				-c path
+
+				Store a binary snapshot of the parsed SysML libraries in this directory and
+				restore the libraries from it on later runs instead of parsing them. The
+				snapshot is recreated when a library file changes. Elements read via the REST
+				API are also stored in this directory, so a commit that has been read before is
+				not downloaded again.
+
 				-o path
 
 				Write generated AADL files to this directory.
@@ -247,6 +562,92 @@ public class SysML2AADLUtil extends SysMLUtil {
 
 				Produce more verbose output to the console during translation.
 
+				-j n
+
+				Convert SysML packages to AADL using n threads. The generated AADL is the
+				same as for a conversion with a single thread, which is the default.
+
+				-t n
+
+				Parse the input files using n threads. Each file is parsed separately before
+				the references between files are resolved. The default is a single thread.
+				When reading projects via the REST API, fetch up to n elements concurrently
+				instead.
+
+				--page-size n
+
+				Read all elements of a project from the REST API in pages of n elements and
+				build the containment tree locally, instead of fetching the elements one at a
+				time. Option -t has no effect in this case.
+
+				--two-pass
+
+				Create all elements of a project read via the REST API before setting the
+				references between them. References to elements that are neither in the
+				project nor in the libraries are the only ones left to resolve. The import
+				with option --page-size always works this way.
+
+				-i
+
+				Convert incrementally. Only SysML packages that changed since the previous
+				conversion and the packages that depend on them are converted, all other AADL
+				files in the output directory are kept. The package dependencies are stored
+				in the output directory. Requires option -o. When reading projects via the
+				REST API with option -c, only the elements that changed since the last import
+				of the project are downloaded.
+
+				-w
+
+				Keep running after the conversion and watch the input files and directories.
+				When a SysML file changes, it is parsed again and the affected packages are
+				converted incrementally as with option -i. Only AADL files whose content has
+				changed are written. Requires option -o.
+
+				--streaming
+
+				Convert the SysML packages one at a time, packages that are referenced first,
+				and write each AADL file as soon as the packages it refers to are converted.
+				The generated AADL models are unloaded when they are no longer needed, and so
+				are the SysML files whose packages and dependent packages are converted. All
+				input files are parsed before the conversion starts, so the peak memory use
+				still includes the complete SysML model. Cannot be combined with options -i,
+				-w, and -j.
+
+				--pipelined
+
+				Convert the SysML packages one at a time, packages that are referenced first,
+				and write the AADL files on another thread while the remaining packages are
+				converted. AADL files that contain elements the text emitter does not support
+				are written after the conversion. Requires option -o and cannot be combined
+				with options -i, -w, -j, and --streaming.
+
+				--metrics
+
+				Print a JSON summary with duration, element count, and used heap before and
+				after each phase of the conversion. The phases are also recorded as JFR events
+				of type org.osate.sysml2aadl.ConversionPhase.
+
+				--diagnostics file
+
+				Write a JSON report listing the converted and skipped SysML elements and the
+				warnings for elements that could only be converted partially to this file.
+				The report replaces the log messages for these elements.
+
+				--server
+
+				Keep the libraries loaded and read conversion requests from stdin. Each line
+				lists the files or, with option -b, the project names to convert separated by
+				spaces. Each request is answered with a line "ok n", where n is the number of
+				generated AADL packages, or "error" followed by a message on the same line.
+				The line "quit" stops the server. While the server is running, all other
+				output goes to stderr.
+
+				--socket path
+
+				Like --server, but read requests from the clients of a unix domain socket with
+				this path. The requests of one client are answered before the next client is
+				accepted.
+
 				-b URL
 
 				Read the SysML models from the SysML repository accessible via this URL.
@@ -263,32 +664,503 @@ public class SysML2AADLUtil extends SysMLUtil {
 		
 		args = processArgs(args);
 
-		if (args != null) {
-			if (sysmlLibraryPath != null) {
-				readAll(sysmlLibraryPath, false);
-				libraryResources.addAll(getInputResources());
-				getInputResources().clear();
-			}
-			if (aadlLibraryPath != null) {
-				readAll(aadlLibraryPath, true);
-				libraryResources.addAll(getInputResources());
-				getInputResources().clear();
-			}
-			if (baseURL == null) {
-				// interpret remaining args as files as sysml files to read and convert to AADL
-				for (var arg : args) {
-					readAll(arg, true);
+		if (incremental && outputPath == null) {
+			System.out.println("Option -" + (watch ? "w" : "i") + " requires an output directory (-o)");
+			return;
+		}
+		if (streaming && (incremental || parallelism > 1)) {
+			System.out.println("Option --streaming cannot be combined with -i, -w, or -j");
+			return;
+		}
+		if (pipelined && outputPath == null) {
+			System.out.println("Option --pipelined requires an output directory (-o)");
+			return;
+		}
+		if (pipelined && (incremental || streaming || parallelism > 1)) {
+			System.out.println("Option --pipelined cannot be combined with -i, -w, -j, or --streaming");
+			return;
+		}
+		if (watch && (baseURL != null || server || socketPath != null)) {
+			System.out.println("Option -w can only be used to convert files");
+			return;
+		}
+		if (server || socketPath != null) {
+			readLibraries();
+			getPropertyLookupContext();
+			preloadedCount = getResourceSet().getResources().size();
+			try {
+				if (socketPath != null) {
+					serve(Paths.get(socketPath));
+				} else {
+					// the replies are the only output on stdout, all other output goes to stderr
+					var stdout = System.out;
+					System.setOut(System.err);
+					try {
+						serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+								new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+					} finally {
+						System.setOut(stdout);
+					}
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		} else if (args != null) {
+			readLibraries();
+			if (watch) {
+				getPropertyLookupContext();
+				preloadedCount = getResourceSet().getResources().size();
+				convert(args);
+				try {
+					watch(args);
+				} catch (IOException e) {
+					e.printStackTrace();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
 				}
-				process();
 			} else {
-				// interpret remaining args as project names to read from API
-				for (var arg : args) {
-					process(arg);
+				convert(args);
+			}
+		}
+	}
+
+	/**
+	 * Convert SysML files or, if a base URL is set, SysML projects to AADL and write the metrics 
+	 * and diagnostics reports.
+	 * @param args the files or project names
+	 * @return the number of generated AADL packages
+	 */
+	private int convert(String[] args) {
+		resetReports();
+		var outputResources = new ArrayList<Resource>();
+		if (baseURL == null) {
+			// interpret args as files as sysml files to read and convert to AADL
+			startPhase(Phase.INPUT_PARSE);
+			readInputs(Arrays.asList(args));
+			endPhase(Phase.INPUT_PARSE, getInputResources());
+			outputResources.addAll(convertFiles());
+		} else {
+			// interpret args as project names to read from API
+			for (var arg : args) {
+				outputResources.addAll(convertProject(arg));
+			}
+		}
+		writeReports();
+		return outputResources.size();
+	}
+
+	/**
+	 * Read SysML input files. With more than one parse thread each file is parsed into a resource 
+	 * set of its own, and the resources are then moved to the shared resource set in the order of
+	 * the files. Parsing does not need the libraries because cross references are linked lazily,
+	 * they are resolved against the libraries loaded in the shared resource set.
+	 * @param paths the files and directories to read
+	 */
+	private void readInputs(List<String> paths) {
+		if (parseThreads <= 1) {
+			for (var path : paths) {
+				readAll(path, true);
+			}
+			return;
+		}
+		var files = new ArrayList<String>();
+		for (var path : paths) {
+			try (var walk = Files.walk(Paths.get(path))) {
+				walk.map(Path::toString).filter(f -> f.endsWith(".sysml") || f.endsWith(".kerml")).sorted()
+						.forEach(files::add);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		var tasks = new ArrayList<Future<Resource>>();
+		var executor = Executors.newFixedThreadPool(parseThreads);
+		try {
+			for (var file : files) {
+				var uri = URI.createFileURI(file);
+				var existing = getResourceSet().getResource(uri, false);
+				tasks.add(existing != null ? CompletableFuture.completedFuture(existing)
+						: executor.submit(() -> parse(uri)));
+			}
+			for (var task : tasks) {
+				var r = task.get();
+				if (r.getResourceSet() != getResourceSet()) {
+					getResourceSet().getResources().add(r);
+					addResourceToIndex(r);
+				}
+				if (!getInputResources().contains(r)) {
+					getInputResources().add(r);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Parse a file into a new resource set that uses the package registry of the shared resource set.
+	 * @param uri the file URI
+	 * @return the resource
+	 * @throws IOException
+	 */
+	private Resource parse(URI uri) throws IOException {
+		var rs = new ResourceSetImpl();
+		rs.setPackageRegistry(getResourceSet().getPackageRegistry());
+		var r = rs.createResource(uri);
+		r.load(getResourceSet().getLoadOptions());
+		return r;
+	}
+
+	private void resetReports() {
+		if (metrics != null) {
+			metrics = new ConversionMetrics();
+		}
+		if (diagnostics != null) {
+			diagnostics = new DiagnosticsReport();
+		}
+	}
+
+	private void writeReports() {
+		if (metrics != null) {
+			System.out.println(metrics.toJson());
+		}
+		if (diagnostics != null) {
+			try (var writer = Files.newBufferedWriter(Paths.get(diagnosticsPath), StandardCharsets.UTF_8)) {
+				diagnostics.writeJson(writer);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Watch the input files and directories and convert again after a SysML file has changed.
+	 * Runs until the process is stopped.
+	 * @param args the input files and directories
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void watch(String[] args) throws IOException, InterruptedException {
+		try (var watcher = FileSystems.getDefault().newWatchService()) {
+			// input files and the directories in which all SysML files are inputs
+			var files = new HashSet<Path>();
+			var trees = new HashSet<Path>();
+			for (var arg : args) {
+				var path = Paths.get(arg).toAbsolutePath().normalize();
+				if (Files.isDirectory(path)) {
+					register(watcher, path, trees, null);
+				} else {
+					files.add(path);
+					path.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				}
+			}
+			System.out.println("Watching for changes");
+			while (true) {
+				var key = watcher.take();
+				// editors may write a file in several steps
+				Thread.sleep(WATCH_DELAY);
+				var changed = new LinkedHashSet<Path>();
+				for (; key != null; key = watcher.poll()) {
+					var dir = (Path) key.watchable();
+					for (var event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW) {
+							for (var r : getInputResources()) {
+								changed.add(getPath(r));
+							}
+							continue;
+						}
+						var path = dir.resolve((Path) event.context());
+						if (trees.contains(dir)) {
+							if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+								register(watcher, path, trees, changed);
+							} else if (path.toString().endsWith(".sysml")) {
+								changed.add(path);
+							}
+						} else if (files.contains(path)) {
+							changed.add(path);
+						}
+					}
+					key.reset();
+				}
+				if (!changed.isEmpty()) {
+					var start = System.currentTimeMillis();
+					try {
+						update(changed);
+						System.out.println("Updated after changes to " + changed.size() + " files in "
+								+ (System.currentTimeMillis() - start) + " ms");
+					} catch (RuntimeException e) {
+						// e.g., a file that is only partially saved, keep watching for the next change
+						e.printStackTrace();
+						System.out.println("Update after changes to " + changed.size() + " files failed: " + e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Register a directory and all its subdirectories with a watch service.
+	 * @param watcher the watch service
+	 * @param root the directory
+	 * @param trees the set of watched directories
+	 * @param changed if not null, SysML files in the directories are added to this set
+	 * @throws IOException
+	 */
+	private void register(WatchService watcher, Path root, Set<Path> trees, Set<Path> changed) throws IOException {
+		try (var paths = Files.walk(root)) {
+			for (var path : (Iterable<Path>) paths::iterator) {
+				if (Files.isDirectory(path)) {
+					path.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+					trees.add(path);
+				} else if (changed != null && path.toString().endsWith(".sysml")) {
+					changed.add(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parse changed SysML files again and convert the affected packages. The files containing 
+	 * packages that depend on a changed package are parsed again as well, so that their references 
+	 * are linked to the new model elements. The dependencies include references in the SysML model
+	 * that do not create AADL references. Files that were deleted are removed from the inputs, and
+	 * the incremental conversion deletes the AADL files generated for their packages.
+	 * @param changed the paths of the changed files
+	 */
+	private void update(Set<Path> changed) {
+		resetReports();
+		var inputs = new HashMap<Path, Resource>();
+		for (var r : getInputResources()) {
+			inputs.put(getPath(r), r);
+		}
+
+		var changedPackages = new HashSet<String>();
+		for (var path : changed) {
+			var r = inputs.get(path);
+			if (r != null) {
+				changedPackages.addAll(getPackageNames(r));
+			}
+		}
+		var reload = new LinkedHashSet<>(changed);
+		try {
+			var graph = PackageDependencyGraph.load(Paths.get(outputPath, PackageDependencyGraph.FILE_NAME));
+			var dependents = graph.getDependentPackages(changedPackages);
+			inputs.forEach((path, r) -> {
+				if (!Collections.disjoint(getPackageNames(r), dependents)) {
+					reload.add(path);
+				}
+			});
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		// remove the AADL resources of the previous conversion and the resources to parse again
+		var resources = getResourceSet().getResources();
+		var keep = new HashSet<>(getInputResources());
+		for (var path : reload) {
+			keep.remove(inputs.get(path));
+		}
+		for (int i = resources.size(); i > preloadedCount; i--) {
+			var r = resources.get(i - 1);
+			if (!keep.contains(r)) {
+				r.unload();
+				resources.remove(i - 1);
+			}
+		}
+		getInputResources().retainAll(keep);
+
+		startPhase(Phase.INPUT_PARSE);
+		readInputs(reload.stream().filter(Files::exists).map(Path::toString).toList());
+		endPhase(Phase.INPUT_PARSE, getInputResources());
+		convertFiles();
+		writeReports();
+	}
+
+	private static Path getPath(Resource r) {
+		return Paths.get(r.getURI().toFileString()).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Get the qualified names of all packages in a SysML resource.
+	 * @param r the resource
+	 * @return the package names
+	 */
+	private static Set<String> getPackageNames(Resource r) {
+		var names = new HashSet<String>();
+		for (var eo : r.getContents()) {
+			if (eo instanceof Namespace ns) {
+				addPackageNames(ns, names);
+			}
+		}
+		return names;
+	}
+
+	private static void addPackageNames(Namespace ns, Set<String> names) {
+		for (var m : ns.getOwnedMember()) {
+			if (m instanceof Package p) {
+				names.add(p.getQualifiedName());
+				addPackageNames(p, names);
+			}
+		}
+	}
+
+	/**
+	 * Accept connections on a unix domain socket and serve the requests of one connection 
+	 * after the other until a client sends "quit".
+	 * @param path the path of the socket
+	 * @throws IOException
+	 */
+	private void serve(Path path) throws IOException {
+		Files.deleteIfExists(path);
+		try (var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			channel.bind(UnixDomainSocketAddress.of(path));
+			System.out.println("Listening on " + path);
+			var quit = false;
+			while (!quit) {
+				try (var client = channel.accept()) {
+					quit = serve(new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8)),
+							Channels.newWriter(client, StandardCharsets.UTF_8));
+				}
+			}
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Serve conversion requests. Each line is a request that lists the files or project names to 
+	 * convert separated by white space. The reply is a line "ok n" where n is the number of generated 
+	 * AADL packages, or "error" followed by a message. The resources read and created for a request are 
+	 * removed afterwards, only the libraries and the contributed AADL resources stay loaded.
+	 * @param in the reader for requests
+	 * @param out the writer for replies
+	 * @return true iff the client sent "quit"
+	 * @throws IOException
+	 */
+	private boolean serve(BufferedReader in, Writer out) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.strip();
+			if ("quit".equals(line)) {
+				return true;
+			}
+			if (line.isEmpty()) {
+				continue;
+			}
+			String reply;
+			try {
+				reply = "ok " + convert(line.split("\\s+"));
+			} catch (RuntimeException | Error e) {
+				e.printStackTrace();
+				reply = "error " + getErrorMessage(e);
+			} finally {
+				cleanResourceSet();
+			}
+			out.write(reply + "\n");
+			out.flush();
+		}
+		return false;
+	}
+
+	/**
+	 * Get the message of an exception for an error reply. The message is reduced to a single line.
+	 * @param e the exception
+	 * @return the message
+	 */
+	private static String getErrorMessage(Throwable e) {
+		var message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+		return message.strip().replaceAll("\\s*\\R\\s*", " ");
+	}
+
+	/**
+	 * Unload and remove all resources that were added to the resource set after the libraries.
+	 */
+	private void cleanResourceSet() {
+		getInputResources().clear();
+		var resources = getResourceSet().getResources();
+		resources.stream().skip(preloadedCount).forEach(Resource::unload);
+		for (int i = resources.size(); i > preloadedCount; i--) {
+			resources.remove(i - 1);
+		}
+	}
+
+	/**
+	 * Read the SysML standard library and the SysML library for AADL. If a cache directory 
+	 * is set, the libraries are restored from a snapshot if it matches the library sources. 
+	 * Otherwise the libraries are parsed and a new snapshot is saved.
+	 */
+	private void readLibraries() {
+		if (cachePath == null) {
+			libraryResources.addAll(parseLibraries());
+		} else {
+			var snapshot = new LibrarySnapshot(Paths.get(cachePath), sysmlLibraryPath, aadlLibraryPath);
+			libraryResources
+					.addAll(snapshot.loadOrParse(getResourceSet(), this::parseLibraries, this::addResourceToIndex));
+		}
+	}
+
+	/**
+	 * Parse the SysML standard library and the SysML library for AADL.
+	 * @return the library resources that are input resources
+	 */
+	private Collection<Resource> parseLibraries() {
+		var inputs = new HashSet<Resource>();
+		if (sysmlLibraryPath != null) {
+			readAll(sysmlLibraryPath, false);
+			inputs.addAll(getInputResources());
+			getInputResources().clear();
+		}
+		if (aadlLibraryPath != null) {
+			readAll(aadlLibraryPath, true);
+			inputs.addAll(getInputResources());
+			getInputResources().clear();
+		}
+		return inputs;
+	}
+
+	private void startPhase(Phase phase) {
+		if (metrics != null) {
+			metrics.start(phase);
+		}
+	}
+
+	/**
+	 * End a phase that produced SysML resources. The element count is the number of SysML 
+	 * elements in the resources.
+	 * @param phase the phase
+	 * @param resources the resources
+	 */
+	private void endPhase(Phase phase, Collection<Resource> resources) {
+		if (metrics != null) {
+			long count = 0;
+			for (var r : resources) {
+				for (var iter = r.getAllContents(); iter.hasNext(); iter.next()) {
+					count++;
 				}
 			}
+			metrics.end(phase, count);
+		}
+	}
+
+	private void endPhase(Phase phase, long elements) {
+		if (metrics != null) {
+			metrics.end(phase, elements);
 		}
 	}
 
+	private EObject getPropertyLookupContext() {
+		if (propertyLookupContext == null) {
+			propertyLookupContext = loadContributedAADL();
+		}
+		return propertyLookupContext;
+	}
+
 	private EObject loadContributedAADL() {
 		EcorePlugin.ExtensionProcessor.process(Thread.currentThread().getContextClassLoader());
 		var contributed = PluginSupportUtil.getContributedAadl();